@@ -0,0 +1,156 @@
+package com.geostar.geostack.git_branch_manager.benchmark;
+
+import com.geostar.geostack.git_branch_manager.common.Page;
+import com.geostar.geostack.git_branch_manager.config.GitRepositoryConfig;
+import com.geostar.geostack.git_branch_manager.pojo.GitLog;
+import com.geostar.geostack.git_branch_manager.pojo.GitProject;
+import com.geostar.geostack.git_branch_manager.service.impl.GitRepositoryServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GitRepositoryServiceImpl热点操作的基准测试，仓库为本地生成的合成仓库，通过@Param调整仓库规模
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GitRepositoryServiceBenchmark {
+    /**
+     * 基准测试切换的分支
+     */
+    private static final String FEATURE_BRANCH = "feature-0";
+
+    @Param("1000")
+    public int commitCount;
+
+    @Param("50")
+    public int refCount;
+
+    @Param("2000")
+    public int fileCount;
+
+    @Param("10")
+    public int projectCount;
+
+    private File workHome;
+
+    private AnnotationConfigApplicationContext context;
+
+    private GitRepositoryServiceImpl gitRepositoryService;
+
+    private List<GitProject> projects;
+
+    private int deepPageIndex;
+
+    private boolean onFeatureBranch;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, GitAPIException {
+        workHome = Files.createTempDirectory("git-branch-manager-benchmark").toFile();
+        SyntheticRepositories repositories = new SyntheticRepositories(new File(workHome, "remote"), commitCount, refCount, fileCount);
+        GitRepositoryConfig config = new GitRepositoryConfig();
+        config.setWorkHome(workHome.getPath());
+        config.setModulesHome(workHome.getPath() + File.separator + "modules");
+        config.setGitUsername("");
+        config.setGitPassword("");
+        config.setFetchInterval(0);
+        config.setProjects(repositories.create(projectCount));
+        context = new AnnotationConfigApplicationContext();
+        context.registerBean(GitRepositoryConfig.class, () -> config);
+        context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        context.scan("com.geostar.geostack.git_branch_manager.service");
+        context.refresh();
+        gitRepositoryService = context.getBean(GitRepositoryServiceImpl.class);
+        projects = gitRepositoryService.getAllGitProject();
+        for (GitProject gitProject : projects) {
+            gitRepositoryService.cloneOrPull(gitProject);
+            repositories.makeDirty(new File(config.getModulesHome(), gitProject.getName()));
+            gitRepositoryService.updateGitProjectInfo(gitProject);
+        }
+        /**
+         * 第一次切换到远程分支时会拉取，预先切换一次使基准测试只测量本地切换
+         */
+        if (refCount > 0) {
+            gitRepositoryService.switchBranch(projects.get(0), FEATURE_BRANCH);
+            gitRepositoryService.switchBranch(projects.get(0), "master");
+        }
+        deepPageIndex = commitCount * projectCount / 2 / 10;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        FileUtils.deleteDirectory(workHome);
+    }
+
+    @Benchmark
+    public GitProject updateGitProjectInfo() throws IOException, GitAPIException {
+        GitProject gitProject = projects.get(0);
+        gitRepositoryService.updateGitProjectInfo(gitProject);
+        return gitProject;
+    }
+
+    @Benchmark
+    public List<String> getAllRemoteBranch() throws IOException, GitAPIException {
+        GitProject gitProject = projects.get(0);
+        gitRepositoryService.getAllRemoteBranch(gitProject);
+        return gitProject.getBranchList();
+    }
+
+    @Benchmark
+    public Page<GitLog> getCommitLogsFirstPage() throws IOException, GitAPIException {
+        return getCommitLogs(0);
+    }
+
+    @Benchmark
+    public Page<GitLog> getCommitLogsDeepPage() throws IOException, GitAPIException {
+        return getCommitLogs(deepPageIndex);
+    }
+
+    @Benchmark
+    public List<String> getBranchIntersect() {
+        return gitRepositoryService.getBranchIntersect(projects);
+    }
+
+    @Benchmark
+    public boolean switchBranch() throws IOException, GitAPIException {
+        if (refCount == 0) {
+            return false;
+        }
+        onFeatureBranch = !onFeatureBranch;
+        return gitRepositoryService.switchBranch(projects.get(0), onFeatureBranch ? FEATURE_BRANCH : "master");
+    }
+
+    private Page<GitLog> getCommitLogs(int pageIndex) throws IOException, GitAPIException {
+        Page<GitLog> page = new Page<>();
+        page.setPageIndex(pageIndex);
+        page.setPageSize(10);
+        gitRepositoryService.getCommitLogs(page, null, null);
+        return page;
+    }
+}
@@ -0,0 +1,137 @@
+package com.geostar.geostack.git_branch_manager.benchmark;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.PersonIdent;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * 生成基准测试使用的本地远程仓库，仓库规模由提交数、分支标签数和文件数决定，不依赖网络
+ */
+public class SyntheticRepositories {
+    /**
+     * 每个目录下的文件数
+     */
+    private static final int FILES_PER_DIR = 100;
+    /**
+     * 轮流提交的作者
+     */
+    private static final String[] AUTHORS = {"zhangsan", "lisi", "wangwu", "zhaoliu", "sunqi"};
+    /**
+     * 第一个提交的时间
+     */
+    private static final long BASE_TIME = 1577836800000L;
+
+    private final File root;
+
+    private final int commitCount;
+
+    private final int refCount;
+
+    private final int fileCount;
+
+    /**
+     * @param root        生成仓库的目录
+     * @param commitCount 每个仓库的提交数
+     * @param refCount    每个仓库的分支数和标签数
+     * @param fileCount   每个仓库的文件数
+     */
+    public SyntheticRepositories(File root, int commitCount, int refCount, int fileCount) {
+        this.root = root;
+        this.commitCount = Math.max(1, commitCount);
+        this.refCount = Math.max(0, refCount);
+        this.fileCount = Math.max(1, fileCount);
+    }
+
+    /**
+     * 生成一组裸仓库
+     *
+     * @param projectCount
+     * @return 各仓库的远程地址
+     * @throws IOException
+     * @throws GitAPIException
+     */
+    public List<String> create(int projectCount) throws IOException, GitAPIException {
+        List<String> remoteUrls = new ArrayList<>();
+        for (int i = 0; i < projectCount; i++) {
+            remoteUrls.add(create("bench-project-" + i));
+        }
+        return remoteUrls;
+    }
+
+    /**
+     * 在工作区中修改已跟踪的文件并新增未跟踪的文件，修改的文件在各分支中内容相同，不影响切换分支
+     *
+     * @param workTree
+     * @throws IOException
+     */
+    public void makeDirty(File workTree) throws IOException {
+        FileUtils.writeStringToFile(new File(workTree, "README.md"), "modified\n", StandardCharsets.UTF_8, true);
+        int untrackedCount = Math.max(1, fileCount / 10);
+        for (int i = 0; i < untrackedCount; i++) {
+            FileUtils.writeStringToFile(new File(workTree, "untracked" + File.separator + "New" + i + ".txt"), "untracked " + i + "\n", StandardCharsets.UTF_8);
+        }
+    }
+
+    private String create(String name) throws IOException, GitAPIException {
+        File seedDir = new File(root, "seed" + File.separator + name);
+        File originDir = new File(root, "origin" + File.separator + name + ".git");
+        try (Git git = Git.init().setDirectory(seedDir).call()) {
+            FileUtils.writeStringToFile(new File(seedDir, "README.md"), name + "\n", StandardCharsets.UTF_8);
+            for (int i = 0; i < fileCount; i++) {
+                FileUtils.writeStringToFile(getFile(seedDir, i), "line 0\n", StandardCharsets.UTF_8);
+            }
+            git.add().addFilepattern(".").call();
+            commit(git, 0);
+            int step = refCount == 0 ? Integer.MAX_VALUE : Math.max(1, commitCount / refCount);
+            int refIndex = 0;
+            for (int i = 1; i < commitCount; i++) {
+                int fileIndex = i % fileCount;
+                FileUtils.writeStringToFile(getFile(seedDir, fileIndex), "line " + i + "\n", StandardCharsets.UTF_8, true);
+                git.add().addFilepattern(getPath(fileIndex)).call();
+                commit(git, i);
+                if (i % step == 0 && refIndex < refCount) {
+                    createRefs(git, refIndex++);
+                }
+            }
+            while (refIndex < refCount) {
+                createRefs(git, refIndex++);
+            }
+        }
+        Git.cloneRepository().setBare(true).setCloneAllBranches(true)
+                .setURI(seedDir.toURI().toString())
+                .setDirectory(originDir)
+                .call()
+                .close();
+        FileUtils.deleteDirectory(seedDir);
+        String remoteUrl = originDir.toURI().toString();
+        return remoteUrl.endsWith("/") ? remoteUrl.substring(0, remoteUrl.length() - 1) : remoteUrl;
+    }
+
+    private void commit(Git git, int index) throws GitAPIException {
+        String author = AUTHORS[index % AUTHORS.length];
+        PersonIdent ident = new PersonIdent(author, author + "@example.com", new Date(BASE_TIME + index * 60000L), TimeZone.getTimeZone("GMT+8"));
+        git.commit().setAuthor(ident).setCommitter(ident).setMessage("commit " + index).call();
+    }
+
+    private void createRefs(Git git, int index) throws GitAPIException {
+        git.branchCreate().setName("feature-" + index).call();
+        git.tag().setName("v1." + index).setMessage("release " + index).call();
+    }
+
+    private File getFile(File workTree, int index) {
+        return new File(workTree, getPath(index).replace('/', File.separatorChar));
+    }
+
+    private String getPath(int index) {
+        return "src/dir" + (index / FILES_PER_DIR) + "/File" + index + ".txt";
+    }
+}
@@ -1,11 +1,14 @@
 package com.geostar.geostack.git_branch_manager;
 
 import com.geostar.geostack.git_branch_manager.common.SpringUtils;
+import com.geostar.geostack.git_branch_manager.config.GitRepositoryConfig;
 import com.geostar.geostack.git_branch_manager.config.MyConfig;
+import com.geostar.geostack.git_branch_manager.service.IStartupWarmupService;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 程序入口文件
@@ -17,6 +20,15 @@ public class GitBranchManagerApplication {
 
     public static void main(String[] args) {
         SpringApplication.run(GitBranchManagerApplication.class, args);
+        /**
+         * 等待启动预热完成再打开浏览器，首个页面直接使用已预热的缓存
+         */
+        try {
+            GitRepositoryConfig gitRepositoryConfig = SpringUtils.getBean(GitRepositoryConfig.class);
+            SpringUtils.getBean(IStartupWarmupService.class).awaitReady(gitRepositoryConfig.getStartupWarmupTimeout(), TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
         try {
             MyConfig config = SpringUtils.getBean(MyConfig.class);
             Runtime.getRuntime().exec("cmd /c start http://127.0.0.1:" + config.getPort());
@@ -0,0 +1,11 @@
+package com.geostar.geostack.git_branch_manager.common;
+
+/**
+ * 贡献统计周期枚举
+ */
+public enum ActivityPeriodEnum {
+
+    DAY, // 按天统计
+    WEEK // 按周统计，每周从周一开始
+
+}
@@ -0,0 +1,11 @@
+package com.geostar.geostack.git_branch_manager.common;
+
+/**
+ * 后台批量任务状态枚举
+ */
+public enum BatchJobStatusEnum {
+
+    RUNNING, // 执行中
+    FINISHED // 已结束
+
+}
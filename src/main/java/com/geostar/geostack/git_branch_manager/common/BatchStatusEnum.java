@@ -0,0 +1,13 @@
+package com.geostar.geostack.git_branch_manager.common;
+
+/**
+ * 批量操作中单个项目的执行结果枚举
+ */
+public enum BatchStatusEnum {
+
+    SUCCESS, // 执行成功
+    SKIPPED, // 无需执行或仓库不存在
+    FAILURE, // 执行出错
+    TIMEOUT // 执行超时，任务仍在后台运行，结束前不释放并发名额
+
+}
@@ -0,0 +1,74 @@
+package com.geostar.geostack.git_branch_manager.common;
+
+import com.geostar.geostack.git_branch_manager.pojo.GitLog;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * 提交日志游标，记录上一页最后一条日志的提交时间、项目名称和commitid，
+ * 编码为URL安全的Base64字符串在请求间传递
+ */
+public class CommitLogCursor {
+    /**
+     * 字段分隔符
+     */
+    private static final String SEPARATOR = "\t";
+
+    private final long commitTime;
+
+    private final String projectName;
+
+    private final String commitId;
+
+    private CommitLogCursor(long commitTime, String projectName, String commitId) {
+        this.commitTime = commitTime;
+        this.projectName = projectName;
+        this.commitId = commitId;
+    }
+
+    /**
+     * 以日志所在位置创建游标
+     *
+     * @param log
+     * @return
+     */
+    public static CommitLogCursor of(GitLog log) {
+        return new CommitLogCursor(log.getCommitTime().getTime(), log.getProjectName(), log.getCommitId());
+    }
+
+    /**
+     * 解析游标
+     *
+     * @param cursor
+     * @return
+     * @throws IllegalArgumentException 游标格式不正确时抛出
+     */
+    public static CommitLogCursor decode(String cursor) {
+        String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        String[] fields = value.split(SEPARATOR, -1);
+        if (fields.length != 3) {
+            throw new IllegalArgumentException("游标格式不正确：" + cursor);
+        }
+        return new CommitLogCursor(Long.parseLong(fields[0]), fields[1], fields[2]);
+    }
+
+    public String encode() {
+        String value = commitTime + SEPARATOR + projectName + SEPARATOR + commitId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 转为只含排序字段的日志，用于和其它日志比较位置
+     *
+     * @return
+     */
+    public GitLog toGitLog() {
+        GitLog log = new GitLog();
+        log.setCommitTime(new Date(commitTime));
+        log.setProjectName(projectName);
+        log.setCommitId(commitId);
+        return log;
+    }
+}
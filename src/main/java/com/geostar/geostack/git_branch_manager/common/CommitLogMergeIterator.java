@@ -0,0 +1,86 @@
+package com.geostar.geostack.git_branch_manager.common;
+
+import com.geostar.geostack.git_branch_manager.pojo.GitLog;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * 多个项目提交日志的k路归并迭代器，每个来源须已按同一排序规则排好序，
+ * 每次只从堆顶来源取出一条，取够所需数量即可停止，不需要合并全部历史
+ */
+public class CommitLogMergeIterator implements Iterator<GitLog> {
+
+    private final PriorityQueue<Source> queue;
+
+    private final Predicate<GitLog> filter;
+
+    /**
+     * @param sources    各项目已排序的日志来源
+     * @param comparator 来源的排序规则
+     * @param filter     过滤条件，不满足的日志直接跳过
+     */
+    public CommitLogMergeIterator(List<Iterator<GitLog>> sources, Comparator<GitLog> comparator, Predicate<GitLog> filter) {
+        this.queue = new PriorityQueue<>(Math.max(1, sources.size()), (source0, source1) -> comparator.compare(source0.head, source1.head));
+        this.filter = filter;
+        for (Iterator<GitLog> iterator : sources) {
+            Source source = new Source(iterator);
+            if (source.advance()) {
+                queue.add(source);
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !queue.isEmpty();
+    }
+
+    @Override
+    public GitLog next() {
+        Source source = queue.poll();
+        if (source == null) {
+            throw new NoSuchElementException();
+        }
+        GitLog log = source.head;
+        if (source.advance()) {
+            queue.add(source);
+        }
+        return log;
+    }
+
+    /**
+     * 单个来源及其当前待输出的日志
+     */
+    private class Source {
+
+        private final Iterator<GitLog> iterator;
+
+        private GitLog head;
+
+        private Source(Iterator<GitLog> iterator) {
+            this.iterator = iterator;
+        }
+
+        /**
+         * 移动到下一条满足过滤条件的日志
+         *
+         * @return 来源已耗尽时返回false
+         */
+        private boolean advance() {
+            while (iterator.hasNext()) {
+                GitLog log = iterator.next();
+                if (filter == null || filter.test(log)) {
+                    head = log;
+                    return true;
+                }
+            }
+            head = null;
+            return false;
+        }
+    }
+}
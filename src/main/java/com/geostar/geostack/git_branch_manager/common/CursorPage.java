@@ -0,0 +1,34 @@
+package com.geostar.geostack.git_branch_manager.common;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 游标分页对象，下一页从nextCursor指向的位置之后继续读取
+ *
+ * @param <T>
+ */
+public class CursorPage<T> {
+
+    /**
+     * 当前页数据
+     */
+    private final List<T> data = new ArrayList<>();
+
+    /**
+     * 下一页的游标，没有更多数据时为null
+     */
+    private String nextCursor;
+
+    public List<T> getData() {
+        return data;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
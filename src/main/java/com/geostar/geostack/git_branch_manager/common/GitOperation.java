@@ -0,0 +1,22 @@
+package com.geostar.geostack.git_branch_manager.common;
+
+import org.eclipse.jgit.api.errors.GitAPIException;
+
+import java.io.IOException;
+
+/**
+ * 需要统计耗时的Git操作
+ *
+ * @param <T> 操作结果类型
+ */
+@FunctionalInterface
+public interface GitOperation<T> {
+
+    /**
+     * 执行操作
+     *
+     * @return
+     */
+    T call() throws IOException, GitAPIException;
+
+}
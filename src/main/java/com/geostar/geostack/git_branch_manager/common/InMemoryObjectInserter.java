@@ -0,0 +1,115 @@
+package com.geostar.geostack.git_branch_manager.common;
+
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.AbbreviatedObjectId;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.transport.PackParser;
+import org.eclipse.jgit.util.IO;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 只在内存中保存写入对象的插入器，不写入对象库，用于试合并等不需要保留结果的场景；
+ * 读取时先查找已插入的对象，再从仓库的对象库读取；
+ * 合并只通过insert写入合并产生的blob、tree和提交，不会接收pack数据流，因此不支持newPackParser
+ */
+public class InMemoryObjectInserter extends ObjectInserter {
+
+    private final Repository repository;
+
+    private final Map<ObjectId, ObjectLoader> objects = new HashMap<>();
+
+    public InMemoryObjectInserter(Repository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public ObjectId insert(int objectType, long length, InputStream in) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("对象过大，无法在内存中保存：" + length);
+        }
+        byte[] data = new byte[(int) length];
+        IO.readFully(in, data, 0, data.length);
+        ObjectId objectId = idFor(objectType, data);
+        objects.putIfAbsent(objectId, new ObjectLoader.SmallObject(objectType, data));
+        return objectId;
+    }
+
+    /**
+     * 不支持解析pack数据流，只用于内存中的合并，合并不会调用此方法
+     */
+    @Override
+    public PackParser newPackParser(InputStream in) {
+        throw new UnsupportedOperationException("内存对象插入器只用于合并，不支持解析pack数据流");
+    }
+
+    @Override
+    public ObjectReader newReader() {
+        return new Reader(repository.newObjectReader());
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+        objects.clear();
+    }
+
+    /**
+     * 先读取插入器中的对象，不存在时从仓库读取
+     */
+    private class Reader extends ObjectReader {
+
+        private final ObjectReader delegate;
+
+        private Reader(ObjectReader delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public ObjectReader newReader() {
+            return new Reader(delegate.newReader());
+        }
+
+        @Override
+        public Collection<ObjectId> resolve(AbbreviatedObjectId id) throws IOException {
+            return delegate.resolve(id);
+        }
+
+        @Override
+        public ObjectLoader open(AnyObjectId objectId, int typeHint) throws MissingObjectException, IOException {
+            ObjectLoader loader = objects.get(objectId);
+            if (loader != null) {
+                return loader;
+            }
+            return delegate.open(objectId, typeHint);
+        }
+
+        @Override
+        public Set<ObjectId> getShallowCommits() throws IOException {
+            return delegate.getShallowCommits();
+        }
+
+        @Override
+        public ObjectInserter getCreatedFromInserter() {
+            return InMemoryObjectInserter.this;
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.geostar.geostack.git_branch_manager.common;
+
+import com.geostar.geostack.git_branch_manager.pojo.JobEvent;
+
+import java.io.IOException;
+
+/**
+ * 后台批量任务事件监听
+ */
+@FunctionalInterface
+public interface JobEventListener {
+
+    /**
+     * 接收任务事件，抛出异常后取消监听
+     *
+     * @param event
+     */
+    void onEvent(JobEvent event) throws IOException;
+
+}
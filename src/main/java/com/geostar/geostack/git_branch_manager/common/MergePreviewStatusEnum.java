@@ -0,0 +1,14 @@
+package com.geostar.geostack.git_branch_manager.common;
+
+/**
+ * 合并预检结果枚举
+ */
+public enum MergePreviewStatusEnum {
+
+    MERGEABLE, // 可以无冲突合并
+    UP_TO_DATE, // 被合并分支已包含在工作分支中，无需合并
+    CONFLICTING, // 存在冲突
+    BRANCH_NOT_FOUND, // 工作分支或被合并分支不存在
+    ERROR // 预检出错
+
+}
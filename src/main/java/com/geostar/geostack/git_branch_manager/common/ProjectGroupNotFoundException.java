@@ -0,0 +1,34 @@
+package com.geostar.geostack.git_branch_manager.common;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 批量操作指定的项目分组不存在，携带已配置的分组名称供调用方提示
+ */
+public class ProjectGroupNotFoundException extends IllegalArgumentException {
+
+    private final String group;
+
+    private final List<String> groups;
+
+    public ProjectGroupNotFoundException(String group, Collection<String> groups) {
+        super("项目分组不存在：" + group);
+        this.group = group;
+        this.groups = new ArrayList<>(groups);
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    /**
+     * 已配置的分组名称
+     *
+     * @return
+     */
+    public List<String> getGroups() {
+        return groups;
+    }
+}
@@ -0,0 +1,24 @@
+package com.geostar.geostack.git_branch_manager.common;
+
+import com.geostar.geostack.git_branch_manager.pojo.GitProject;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ProgressMonitor;
+
+import java.io.IOException;
+
+/**
+ * 针对单个项目执行并上报JGit进度的后台任务
+ */
+@FunctionalInterface
+public interface ProjectProgressTask {
+
+    /**
+     * 对单个项目执行操作
+     *
+     * @param gitProject
+     * @param monitor    JGit进度监听
+     * @return 返回false表示该项目无需处理，记为跳过
+     */
+    boolean execute(GitProject gitProject, ProgressMonitor monitor) throws IOException, GitAPIException;
+
+}
@@ -0,0 +1,22 @@
+package com.geostar.geostack.git_branch_manager.common;
+
+import com.geostar.geostack.git_branch_manager.pojo.GitProject;
+import org.eclipse.jgit.api.errors.GitAPIException;
+
+import java.io.IOException;
+
+/**
+ * 针对单个项目执行的批量操作任务
+ */
+@FunctionalInterface
+public interface ProjectTask {
+
+    /**
+     * 对单个项目执行操作
+     *
+     * @param gitProject
+     * @return 返回false表示该项目无需处理，记为跳过
+     */
+    boolean execute(GitProject gitProject) throws IOException, GitAPIException;
+
+}
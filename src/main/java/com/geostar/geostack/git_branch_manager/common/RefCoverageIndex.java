@@ -0,0 +1,137 @@
+package com.geostar.geostack.git_branch_manager.common;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 分支或标签名称到所属项目的索引，每个项目占一个位，名称对应拥有它的项目位集合，
+ * 单个项目的名称变化时只更新该项目的位，求交集和覆盖数时不修改项目自身的名称集合
+ */
+public class RefCoverageIndex {
+
+    /**
+     * 项目名称到位序号
+     */
+    private final Map<String, Integer> projectSlots = new HashMap<>();
+
+    /**
+     * 项目当前拥有的名称，保持项目中的原有顺序
+     */
+    private final Map<String, Set<String>> projectNames = new HashMap<>();
+
+    /**
+     * 名称到拥有它的项目位集合
+     */
+    private final Map<String, BitSet> nameProjects = new LinkedHashMap<>();
+
+    /**
+     * 以项目当前的名称集合替换索引中的记录，只处理新增和移除的名称
+     *
+     * @param projectName
+     * @param names
+     */
+    public synchronized void update(String projectName, Collection<String> names) {
+        Integer slot = projectSlots.get(projectName);
+        if (slot == null) {
+            slot = projectSlots.size();
+            projectSlots.put(projectName, slot);
+        }
+        Set<String> newNames = new LinkedHashSet<>(names);
+        Set<String> oldNames = projectNames.put(projectName, newNames);
+        if (oldNames != null) {
+            for (String name : oldNames) {
+                if (!newNames.contains(name)) {
+                    BitSet projects = nameProjects.get(name);
+                    projects.clear(slot);
+                    if (projects.isEmpty()) {
+                        nameProjects.remove(name);
+                    }
+                }
+            }
+        }
+        for (String name : newNames) {
+            if (oldNames == null || !oldNames.contains(name)) {
+                nameProjects.computeIfAbsent(name, key -> new BitSet()).set(slot);
+            }
+        }
+    }
+
+    /**
+     * 获取一组项目共有的名称，按第一个项目中的顺序排列
+     *
+     * @param projectNames
+     * @return 新建的集合，任一项目未建立索引时返回空集合
+     */
+    public synchronized List<String> intersect(List<String> projectNames) {
+        List<String> result = new ArrayList<>();
+        BitSet selected = select(projectNames);
+        if (selected == null || selected.isEmpty()) {
+            return result;
+        }
+        for (String name : this.projectNames.get(projectNames.get(0))) {
+            BitSet missing = (BitSet) selected.clone();
+            missing.andNot(nameProjects.get(name));
+            if (missing.isEmpty()) {
+                result.add(name);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获取一组项目中每个名称被多少个项目拥有，按拥有的项目数倒序排列
+     *
+     * @param projectNames
+     * @return 名称到项目数，不包含这组项目都没有的名称
+     */
+    public synchronized Map<String, Integer> coverage(List<String> projectNames) {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        BitSet selected = new BitSet();
+        for (String projectName : projectNames) {
+            Integer slot = projectSlots.get(projectName);
+            if (slot != null) {
+                selected.set(slot);
+            }
+        }
+        List<Map.Entry<String, Integer>> counts = new ArrayList<>();
+        for (Map.Entry<String, BitSet> entry : nameProjects.entrySet()) {
+            BitSet owned = (BitSet) entry.getValue().clone();
+            owned.and(selected);
+            int count = owned.cardinality();
+            if (count > 0) {
+                counts.add(new AbstractMap.SimpleEntry<>(entry.getKey(), count));
+            }
+        }
+        counts.sort((entry0, entry1) -> Integer.compare(entry1.getValue(), entry0.getValue()));
+        for (Map.Entry<String, Integer> entry : counts) {
+            result.put(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * 获取一组项目的位集合
+     *
+     * @param projectNames
+     * @return 任一项目未建立索引时返回null
+     */
+    private BitSet select(List<String> projectNames) {
+        BitSet selected = new BitSet();
+        for (String projectName : projectNames) {
+            Integer slot = projectSlots.get(projectName);
+            if (slot == null) {
+                return null;
+            }
+            selected.set(slot);
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,142 @@
+package com.geostar.geostack.git_branch_manager.common;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 仓库引用的只读快照，一次读取引用数据库后按短名称建立索引，
+ * 同一次操作中的分支类型判断、分支列表和标签列表都从快照获取，不再重复读取引用
+ */
+public class RefSnapshot {
+    /**
+     * 默认远程跟踪分支前缀
+     */
+    private static final String ORIGIN_PREFIX = Constants.R_REMOTES + Constants.DEFAULT_REMOTE_NAME + "/";
+
+    /**
+     * 不存在仓库时使用的空快照
+     */
+    public static final RefSnapshot EMPTY = new RefSnapshot(Collections.emptyList());
+
+    /**
+     * 本地分支，短名称到引用
+     */
+    private final Map<String, Ref> localBranches = new LinkedHashMap<>();
+
+    /**
+     * 默认远程的跟踪分支，短名称到引用
+     */
+    private final Map<String, Ref> remoteBranches = new LinkedHashMap<>();
+
+    /**
+     * 标签，短名称到引用
+     */
+    private final Map<String, Ref> tags = new LinkedHashMap<>();
+
+    /**
+     * 本地分支和所有远程跟踪分支的显示名称，默认远程的分支去掉前缀，按引用名称排序且不重复
+     */
+    private final Set<String> branchNames = new LinkedHashSet<>();
+
+    private RefSnapshot(List<Ref> refs) {
+        List<Ref> sorted = new ArrayList<>(refs);
+        sorted.sort((ref0, ref1) -> ref0.getName().compareTo(ref1.getName()));
+        for (Ref ref : sorted) {
+            String name = ref.getName();
+            String branchName = null;
+            if (name.startsWith(Constants.R_HEADS)) {
+                branchName = name.substring(Constants.R_HEADS.length());
+                localBranches.put(branchName, ref);
+            } else if (name.startsWith(ORIGIN_PREFIX)) {
+                branchName = name.substring(ORIGIN_PREFIX.length());
+                remoteBranches.put(branchName, ref);
+            } else if (name.startsWith(Constants.R_REMOTES)) {
+                branchName = name;
+            } else if (name.startsWith(Constants.R_TAGS)) {
+                tags.put(name.substring(Constants.R_TAGS.length()), ref);
+            }
+            if (branchName != null) {
+                branchNames.add(branchName);
+            }
+        }
+    }
+
+    /**
+     * 读取仓库当前的全部引用
+     *
+     * @param repository
+     * @return
+     * @throws IOException
+     */
+    public static RefSnapshot of(Repository repository) throws IOException {
+        return new RefSnapshot(repository.getRefDatabase().getRefs());
+    }
+
+    /**
+     * 获取分支类型
+     *
+     * @param branch 分支名称
+     * @return
+     */
+    public BranchTypeEnum getBranchType(String branch) {
+        boolean isLocalBranch = localBranches.containsKey(branch);
+        boolean isRemoteBranch = remoteBranches.containsKey(branch);
+        if (isLocalBranch && isRemoteBranch) {
+            return BranchTypeEnum.LOCAL_AND_REMOTE;
+        }
+        if (isLocalBranch) {
+            return BranchTypeEnum.LOCAL;
+        }
+        if (isRemoteBranch) {
+            return BranchTypeEnum.REMOTE;
+        }
+        return BranchTypeEnum.NOT_EXIST;
+    }
+
+    /**
+     * 获取本地分支，短名称到引用
+     *
+     * @return
+     */
+    public Map<String, Ref> getLocalBranches() {
+        return Collections.unmodifiableMap(localBranches);
+    }
+
+    /**
+     * 获取默认远程的跟踪分支引用
+     *
+     * @param branch 分支名称
+     * @return 跟踪分支不存在时返回null
+     */
+    public Ref getRemoteBranch(String branch) {
+        return remoteBranches.get(branch);
+    }
+
+    /**
+     * 获取标签引用
+     *
+     * @param tagName
+     * @return 标签不存在时返回null
+     */
+    public Ref getTag(String tagName) {
+        return tags.get(tagName);
+    }
+
+    public List<String> getBranchNames() {
+        return Collections.unmodifiableList(new ArrayList<>(branchNames));
+    }
+
+    public List<String> getTagNames() {
+        return Collections.unmodifiableList(new ArrayList<>(tags.keySet()));
+    }
+}
@@ -0,0 +1,37 @@
+package com.geostar.geostack.git_branch_manager.common;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * 从仓库池借出的仓库句柄，关闭句柄只归还引用，不关闭底层仓库
+ */
+public class RepositoryHandle implements AutoCloseable {
+
+    private final Git git;
+
+    private final Runnable release;
+
+    private boolean closed;
+
+    public RepositoryHandle(Repository repository, Runnable release) {
+        this.git = Git.wrap(repository);
+        this.release = release;
+    }
+
+    public Git getGit() {
+        return git;
+    }
+
+    public Repository getRepository() {
+        return git.getRepository();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            release.run();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.geostar.geostack.git_branch_manager.common;
+
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.AbstractTreeIterator;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
+import org.eclipse.jgit.treewalk.WorkingTreeIterator;
+import org.eclipse.jgit.util.FS;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * 将指定名称的目录（如target、node_modules）视为已忽略的工作区迭代器，
+ * 计算状态时不在索引中的此类目录直接跳过，不再逐个遍历其中的文件；目录中有已跟踪文件时仍正常比较；
+ * 可选地记下时间戳或大小与索引不一致、但内容未变的文件，供之后写回索引
+ */
+public class SkipDirsFileTreeIterator extends FileTreeIterator {
+
+    private final Set<String> skipDirs;
+
+    private final Set<String> refreshPaths;
+
+    /**
+     * @param repository
+     * @param skipDirs   跳过的目录名称
+     */
+    public SkipDirsFileTreeIterator(Repository repository, Set<String> skipDirs) {
+        this(repository, skipDirs, null);
+    }
+
+    /**
+     * @param repository
+     * @param skipDirs     跳过的目录名称
+     * @param refreshPaths 收集时间戳或大小与索引不一致、但内容未变的文件路径，为null时不收集
+     */
+    public SkipDirsFileTreeIterator(Repository repository, Set<String> skipDirs, Set<String> refreshPaths) {
+        super(repository);
+        this.skipDirs = skipDirs;
+        this.refreshPaths = refreshPaths;
+    }
+
+    private SkipDirsFileTreeIterator(WorkingTreeIterator parent, File root, FS fs, FileModeStrategy fileModeStrategy,
+                                     Set<String> skipDirs, Set<String> refreshPaths) {
+        super(parent, root, fs, fileModeStrategy);
+        this.skipDirs = skipDirs;
+        this.refreshPaths = refreshPaths;
+    }
+
+    @Override
+    public boolean isEntryIgnored() throws IOException {
+        if (FileMode.TREE.equals(getEntryFileMode()) && skipDirs.contains(getEntryFile().getName())) {
+            return true;
+        }
+        return super.isEntryIgnored();
+    }
+
+    @Override
+    public boolean isModified(DirCacheEntry entry, boolean forceContentCheck, ObjectReader reader) throws IOException {
+        if (refreshPaths == null) {
+            return super.isModified(entry, forceContentCheck, reader);
+        }
+        /**
+         * 比较内容时JGit可能修改内存中条目的大小，需在比较前先取得时间戳和大小的差异
+         */
+        MetadataDiff diff = compareMetadata(entry);
+        boolean modified = super.isModified(entry, forceContentCheck, reader);
+        if (!modified && diff != MetadataDiff.EQUAL) {
+            refreshPaths.add(entry.getPathString());
+        }
+        return modified;
+    }
+
+    @Override
+    public AbstractTreeIterator createSubtreeIterator(ObjectReader reader) throws IOException {
+        return new SkipDirsFileTreeIterator(this, getEntryFile(), fs, fileModeStrategy, skipDirs, refreshPaths);
+    }
+}
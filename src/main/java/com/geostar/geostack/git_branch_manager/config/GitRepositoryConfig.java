@@ -1,11 +1,17 @@
 package com.geostar.geostack.git_branch_manager.config;
 
+import com.geostar.geostack.git_branch_manager.common.ProjectGroupNotFoundException;
 import com.geostar.geostack.git_branch_manager.pojo.GitProject;
+import com.geostar.geostack.git_branch_manager.pojo.ProjectGroup;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Component
 @ConfigurationProperties
@@ -21,6 +27,96 @@ public class GitRepositoryConfig {
 
     private String gitPassword;
 
+    /**
+     * 批量操作的并发项目数
+     */
+    private int batchConcurrency = 8;
+
+    /**
+     * 批量操作中单个项目的超时时间，单位秒，0表示不超时
+     */
+    private long batchTimeout = 600;
+
+    /**
+     * 仓库池中空闲仓库的关闭时间，单位秒
+     */
+    private long repositoryIdleTimeout = 300;
+
+    /**
+     * 克隆时只克隆的分支，为空时克隆全部分支
+     */
+    private final List<String> cloneBranches = new ArrayList<>();
+
+    /**
+     * 按项目名称单独配置克隆的分支，优先于cloneBranches
+     */
+    private final Map<String, List<String>> projectCloneBranches = new HashMap<>();
+
+    /**
+     * 后台拉取远程分支的间隔，单位秒，0表示不在后台拉取
+     */
+    private long fetchInterval = 300;
+
+    /**
+     * 每轮后台拉取中各项目随机错开的最大时间，单位秒
+     */
+    private long fetchJitter = 30;
+
+    /**
+     * 同一Git服务器同时进行的后台拉取数
+     */
+    private int fetchHostConcurrency = 4;
+
+    /**
+     * 合并分支时工作分支未检出的仓库直接在内存中合并并提交，不切换分支
+     */
+    private boolean mergeInCore = false;
+
+    /**
+     * 是否在work-home下为每个远程地址维护本地镜像，克隆时从镜像克隆
+     */
+    private boolean referenceMirror = false;
+
+    /**
+     * 后台维护仓库的间隔，单位秒，0表示不维护
+     */
+    private long maintenanceInterval = 3600;
+
+    /**
+     * 每轮维护的时间预算，单位秒，剩余预算不足下一个项目上次维护的耗时时停止，剩余项目留到下一轮，0表示不限
+     */
+    private long maintenanceBudget = 600;
+
+    /**
+     * 项目空闲超过该时间才进行维护，单位秒
+     */
+    private long maintenanceIdle = 300;
+
+    /**
+     * 计算工作区状态时跳过的目录名称，通常为构建输出或依赖目录，其中的未跟踪文件不会显示
+     */
+    private final List<String> statusSkipDirs = new ArrayList<>(Arrays.asList("target", "node_modules"));
+
+    /**
+     * 所有项目监听工作区目录的总数上限，超出后新的项目不再监听目录，每次刷新时完整扫描
+     */
+    private int statusMaxWatches = 8192;
+
+    /**
+     * 启动后是否在后台并发预热所有项目
+     */
+    private boolean startupWarmup = true;
+
+    /**
+     * 打开浏览器前等待预热完成的最长时间，单位秒，0表示不等待
+     */
+    private long startupWarmupTimeout = 60;
+
+    /**
+     * 项目分组，分组名称到分组，批量操作可只针对某一分组
+     */
+    private final Map<String, ProjectGroup> projectGroups = new LinkedHashMap<>();
+
     public String getWorkHome() {
         return workHome;
     }
@@ -67,4 +163,207 @@ public class GitRepositoryConfig {
     public void setGitPassword(String gitPassword) {
         this.gitPassword = gitPassword;
     }
+
+    public int getBatchConcurrency() {
+        return batchConcurrency;
+    }
+
+    public void setBatchConcurrency(int batchConcurrency) {
+        this.batchConcurrency = batchConcurrency;
+    }
+
+    public long getBatchTimeout() {
+        return batchTimeout;
+    }
+
+    public void setBatchTimeout(long batchTimeout) {
+        this.batchTimeout = batchTimeout;
+    }
+
+    public long getRepositoryIdleTimeout() {
+        return repositoryIdleTimeout;
+    }
+
+    public void setRepositoryIdleTimeout(long repositoryIdleTimeout) {
+        this.repositoryIdleTimeout = repositoryIdleTimeout;
+    }
+
+    public List<String> getCloneBranches() {
+        return cloneBranches;
+    }
+
+    public void setCloneBranches(List<String> cloneBranches) {
+        this.cloneBranches.clear();
+        this.cloneBranches.addAll(cloneBranches);
+    }
+
+    public Map<String, List<String>> getProjectCloneBranches() {
+        return projectCloneBranches;
+    }
+
+    public void setProjectCloneBranches(Map<String, List<String>> projectCloneBranches) {
+        this.projectCloneBranches.clear();
+        this.projectCloneBranches.putAll(projectCloneBranches);
+    }
+
+    public long getFetchInterval() {
+        return fetchInterval;
+    }
+
+    public void setFetchInterval(long fetchInterval) {
+        this.fetchInterval = fetchInterval;
+    }
+
+    public long getFetchJitter() {
+        return fetchJitter;
+    }
+
+    public void setFetchJitter(long fetchJitter) {
+        this.fetchJitter = fetchJitter;
+    }
+
+    public int getFetchHostConcurrency() {
+        return fetchHostConcurrency;
+    }
+
+    public void setFetchHostConcurrency(int fetchHostConcurrency) {
+        this.fetchHostConcurrency = fetchHostConcurrency;
+    }
+
+    public boolean isMergeInCore() {
+        return mergeInCore;
+    }
+
+    public void setMergeInCore(boolean mergeInCore) {
+        this.mergeInCore = mergeInCore;
+    }
+
+    public boolean isReferenceMirror() {
+        return referenceMirror;
+    }
+
+    public void setReferenceMirror(boolean referenceMirror) {
+        this.referenceMirror = referenceMirror;
+    }
+
+    public long getMaintenanceInterval() {
+        return maintenanceInterval;
+    }
+
+    public void setMaintenanceInterval(long maintenanceInterval) {
+        this.maintenanceInterval = maintenanceInterval;
+    }
+
+    public long getMaintenanceBudget() {
+        return maintenanceBudget;
+    }
+
+    public void setMaintenanceBudget(long maintenanceBudget) {
+        this.maintenanceBudget = maintenanceBudget;
+    }
+
+    public long getMaintenanceIdle() {
+        return maintenanceIdle;
+    }
+
+    public void setMaintenanceIdle(long maintenanceIdle) {
+        this.maintenanceIdle = maintenanceIdle;
+    }
+
+    public List<String> getStatusSkipDirs() {
+        return statusSkipDirs;
+    }
+
+    public void setStatusSkipDirs(List<String> statusSkipDirs) {
+        this.statusSkipDirs.clear();
+        this.statusSkipDirs.addAll(statusSkipDirs);
+    }
+
+    public int getStatusMaxWatches() {
+        return statusMaxWatches;
+    }
+
+    public void setStatusMaxWatches(int statusMaxWatches) {
+        this.statusMaxWatches = statusMaxWatches;
+    }
+
+    public boolean isStartupWarmup() {
+        return startupWarmup;
+    }
+
+    public void setStartupWarmup(boolean startupWarmup) {
+        this.startupWarmup = startupWarmup;
+    }
+
+    public long getStartupWarmupTimeout() {
+        return startupWarmupTimeout;
+    }
+
+    public void setStartupWarmupTimeout(long startupWarmupTimeout) {
+        this.startupWarmupTimeout = startupWarmupTimeout;
+    }
+
+    public Map<String, ProjectGroup> getProjectGroups() {
+        return projectGroups;
+    }
+
+    public void setProjectGroups(Map<String, ProjectGroup> projectGroups) {
+        this.projectGroups.clear();
+        this.projectGroups.putAll(projectGroups);
+    }
+
+    /**
+     * 获取项目需要克隆的分支
+     *
+     * @param gitProject
+     * @return 为空时克隆全部分支
+     */
+    public List<String> getCloneBranches(GitProject gitProject) {
+        List<String> branches = projectCloneBranches.get(gitProject.getName());
+        return branches != null ? branches : cloneBranches;
+    }
+
+    /**
+     * 获取分组包含的项目，按projects中的顺序排列
+     *
+     * @param group 分组名称，为空时返回全部项目
+     * @return
+     * @throws ProjectGroupNotFoundException 分组不存在时抛出
+     */
+    public List<GitProject> getProjects(String group) {
+        if (group == null || group.isEmpty()) {
+            return gitProjects;
+        }
+        ProjectGroup projectGroup = getProjectGroup(group);
+        List<GitProject> result = new ArrayList<>();
+        for (GitProject gitProject : gitProjects) {
+            if (projectGroup.getProjects().contains(gitProject.getName()) || projectGroup.getProjects().contains(gitProject.getRemoteUrl())) {
+                result.add(gitProject);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获取对分组批量操作时的并发项目数
+     *
+     * @param group 分组名称，为空时返回batchConcurrency
+     * @return
+     * @throws ProjectGroupNotFoundException 分组不存在时抛出
+     */
+    public int getBatchConcurrency(String group) {
+        if (group == null || group.isEmpty()) {
+            return batchConcurrency;
+        }
+        int concurrency = getProjectGroup(group).getConcurrency();
+        return concurrency > 0 ? concurrency : batchConcurrency;
+    }
+
+    private ProjectGroup getProjectGroup(String group) {
+        ProjectGroup projectGroup = projectGroups.get(group);
+        if (projectGroup == null) {
+            throw new ProjectGroupNotFoundException(group, projectGroups.keySet());
+        }
+        return projectGroup;
+    }
 }
@@ -0,0 +1,25 @@
+package com.geostar.geostack.git_branch_manager.config;
+
+import com.geostar.geostack.git_branch_manager.service.IStartupWarmupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * 启动预热的健康检查，名称为warmup，加入readiness分组，预热完成前为OUT_OF_SERVICE
+ */
+@Component
+public class WarmupHealthIndicator implements HealthIndicator {
+
+    @Autowired
+    private IStartupWarmupService startupWarmupService;
+
+    @Override
+    public Health health() {
+        Health.Builder builder = startupWarmupService.isReady() ? Health.up() : Health.outOfService();
+        return builder.withDetail("completed", startupWarmupService.getCompletedCount())
+                .withDetail("total", startupWarmupService.getTotalCount())
+                .build();
+    }
+}
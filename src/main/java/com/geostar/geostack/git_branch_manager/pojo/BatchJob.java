@@ -0,0 +1,117 @@
+package com.geostar.geostack.git_branch_manager.pojo;
+
+import com.geostar.geostack.git_branch_manager.common.BatchJobStatusEnum;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 后台批量任务
+ */
+public class BatchJob {
+
+    /**
+     * 任务id
+     */
+    private String jobId;
+
+    /**
+     * 操作名称
+     */
+    private String operation;
+
+    /**
+     * 任务状态
+     */
+    private BatchJobStatusEnum status;
+
+    /**
+     * 开始时间
+     */
+    private Date startTime;
+
+    /**
+     * 结束时间
+     */
+    private Date endTime;
+
+    /**
+     * 项目总数
+     */
+    private int projectCount;
+
+    /**
+     * 已处理完毕的项目数
+     */
+    private int finishedCount;
+
+    /**
+     * 各项目执行结果，任务结束后写入
+     */
+    private List<BatchResult> results = new ArrayList<>();
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public void setOperation(String operation) {
+        this.operation = operation;
+    }
+
+    public BatchJobStatusEnum getStatus() {
+        return status;
+    }
+
+    public void setStatus(BatchJobStatusEnum status) {
+        this.status = status;
+    }
+
+    public Date getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(Date startTime) {
+        this.startTime = startTime;
+    }
+
+    public Date getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(Date endTime) {
+        this.endTime = endTime;
+    }
+
+    public int getProjectCount() {
+        return projectCount;
+    }
+
+    public void setProjectCount(int projectCount) {
+        this.projectCount = projectCount;
+    }
+
+    public int getFinishedCount() {
+        return finishedCount;
+    }
+
+    public void setFinishedCount(int finishedCount) {
+        this.finishedCount = finishedCount;
+    }
+
+    public List<BatchResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<BatchResult> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,65 @@
+package com.geostar.geostack.git_branch_manager.pojo;
+
+import com.geostar.geostack.git_branch_manager.common.BatchStatusEnum;
+
+/**
+ * 批量操作中单个项目的执行结果
+ */
+public class BatchResult {
+
+    /**
+     * 项目名称
+     */
+    private String projectName;
+
+    /**
+     * 执行结果
+     */
+    private BatchStatusEnum status;
+
+    /**
+     * 结果说明，失败时为异常信息
+     */
+    private String message;
+
+    /**
+     * 执行耗时，单位毫秒
+     */
+    private long duration;
+
+    public String getProjectName() {
+        return projectName;
+    }
+
+    public void setProjectName(String projectName) {
+        this.projectName = projectName;
+    }
+
+    public BatchStatusEnum getStatus() {
+        return status;
+    }
+
+    public void setStatus(BatchStatusEnum status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+
+    public void setDuration(long duration) {
+        this.duration = duration;
+    }
+
+    public boolean isSuccess() {
+        return BatchStatusEnum.SUCCESS == status || BatchStatusEnum.SKIPPED == status;
+    }
+}
@@ -0,0 +1,45 @@
+package com.geostar.geostack.git_branch_manager.pojo;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 单个作者在统计范围内的提交数
+ */
+public class ContributorActivity {
+
+    /**
+     * 作者名称
+     */
+    private String username;
+
+    /**
+     * 统计范围内的提交总数
+     */
+    private int commitCount;
+
+    /**
+     * 各周期的提交数，键为周期第一天，格式yyyy-MM-dd，按日期升序
+     */
+    private final Map<String, Integer> activity = new TreeMap<>();
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public int getCommitCount() {
+        return commitCount;
+    }
+
+    public void setCommitCount(int commitCount) {
+        this.commitCount = commitCount;
+    }
+
+    public Map<String, Integer> getActivity() {
+        return activity;
+    }
+}
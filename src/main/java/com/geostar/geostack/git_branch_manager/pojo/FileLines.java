@@ -0,0 +1,97 @@
+package com.geostar.geostack.git_branch_manager.pojo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 文件按行分页读取的结果
+ */
+public class FileLines {
+
+    /**
+     * 本页第一行的行号，从0开始
+     */
+    private int startLine;
+
+    /**
+     * 下一页第一行的行号，没有更多内容时为-1
+     */
+    private int nextLine = -1;
+
+    /**
+     * 文件总行数，行索引尚未扫描到文件末尾时为-1
+     */
+    private int totalLines = -1;
+
+    /**
+     * 文件字节数
+     */
+    private long fileSize;
+
+    /**
+     * 是否为二进制文件，二进制文件不返回内容
+     */
+    private boolean binary;
+
+    /**
+     * 单行超过单页字节上限时只返回该行的开头部分
+     */
+    private boolean truncated;
+
+    /**
+     * 本页各行内容，不含换行符
+     */
+    private final List<String> lines = new ArrayList<>();
+
+    public int getStartLine() {
+        return startLine;
+    }
+
+    public void setStartLine(int startLine) {
+        this.startLine = startLine;
+    }
+
+    public int getNextLine() {
+        return nextLine;
+    }
+
+    public void setNextLine(int nextLine) {
+        this.nextLine = nextLine;
+    }
+
+    public int getTotalLines() {
+        return totalLines;
+    }
+
+    public void setTotalLines(int totalLines) {
+        this.totalLines = totalLines;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public void setFileSize(long fileSize) {
+        this.fileSize = fileSize;
+    }
+
+    public boolean isBinary() {
+        return binary;
+    }
+
+    public void setBinary(boolean binary) {
+        this.binary = binary;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public void setTruncated(boolean truncated) {
+        this.truncated = truncated;
+    }
+
+    public List<String> getLines() {
+        return lines;
+    }
+}
@@ -17,6 +17,11 @@ public class GitLog {
      */
     private String username;
 
+    /**
+     * 用户邮箱
+     */
+    private String email;
+
     /**
      * commitid
      */
@@ -48,6 +53,14 @@ public class GitLog {
         this.username = username;
     }
 
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
     public String getCommitId() {
         return commitId;
     }
@@ -2,6 +2,9 @@ package com.geostar.geostack.git_branch_manager.pojo;
 
 import java.util.*;
 
+/**
+ * 项目信息，分支、标签和工作区状态集合在刷新时整体替换，已发布的集合不再修改，可被多个线程同时读取
+ */
 public class GitProject {
 
     /**
@@ -47,32 +50,32 @@ public class GitProject {
     /**
      * 分支集合
      */
-    private final List<String> branchList = new ArrayList<>();
+    private volatile List<String> branchList = Collections.emptyList();
 
     /**
      * 标签集合
      */
-    private final List<String> tagList = new ArrayList<>();
+    private volatile List<String> tagList = Collections.emptyList();
 
     /**
      * 仓库文件新增集合
      */
-    private final Set<String> untrackedSet = new HashSet<>();
+    private volatile Set<String> untrackedSet = Collections.emptySet();
 
     /**
      * 仓库文件修改集合
      */
-    private final Set<String> modifiedSet = new HashSet<>();
+    private volatile Set<String> modifiedSet = Collections.emptySet();
 
     /**
      * 仓库文件删除集合
      */
-    private final Set<String> missingSet = new HashSet<>();
+    private volatile Set<String> missingSet = Collections.emptySet();
 
     /**
      * 仓库文件冲突集合
      */
-    private final Set<String> conflictingSet = new HashSet<>();
+    private volatile Set<String> conflictingSet = Collections.emptySet();
 
     public String getName() {
         return name;
@@ -142,24 +145,48 @@ public class GitProject {
         return branchList;
     }
 
+    public void setBranchList(List<String> branchList) {
+        this.branchList = Collections.unmodifiableList(branchList);
+    }
+
     public List<String> getTagList() {
         return tagList;
     }
 
+    public void setTagList(List<String> tagList) {
+        this.tagList = Collections.unmodifiableList(tagList);
+    }
+
     public Set<String> getUntrackedSet() {
         return untrackedSet;
     }
 
+    public void setUntrackedSet(Set<String> untrackedSet) {
+        this.untrackedSet = Collections.unmodifiableSet(untrackedSet);
+    }
+
     public Set<String> getModifiedSet() {
         return modifiedSet;
     }
 
+    public void setModifiedSet(Set<String> modifiedSet) {
+        this.modifiedSet = Collections.unmodifiableSet(modifiedSet);
+    }
+
     public Set<String> getMissingSet() {
         return missingSet;
     }
 
+    public void setMissingSet(Set<String> missingSet) {
+        this.missingSet = Collections.unmodifiableSet(missingSet);
+    }
+
     public Set<String> getConflictingSet() {
         return conflictingSet;
     }
 
+    public void setConflictingSet(Set<String> conflictingSet) {
+        this.conflictingSet = Collections.unmodifiableSet(conflictingSet);
+    }
+
 }
@@ -0,0 +1,133 @@
+package com.geostar.geostack.git_branch_manager.pojo;
+
+import java.util.Date;
+
+/**
+ * 后台批量任务的进度事件
+ */
+public class JobEvent {
+
+    /**
+     * 项目开始处理
+     */
+    public static final String PROJECT_START = "project-start";
+
+    /**
+     * JGit传输进度
+     */
+    public static final String PROGRESS = "progress";
+
+    /**
+     * 项目处理完毕
+     */
+    public static final String PROJECT_FINISH = "project-finish";
+
+    /**
+     * 任务结束
+     */
+    public static final String JOB_FINISH = "job-finish";
+
+    /**
+     * 事件序号，同一任务内递增，用于断线后续传
+     */
+    private long id;
+
+    /**
+     * 事件类型
+     */
+    private String type;
+
+    /**
+     * 项目名称
+     */
+    private String projectName;
+
+    /**
+     * JGit进度任务名称，如Receiving objects
+     */
+    private String task;
+
+    /**
+     * 已完成数量
+     */
+    private int completed;
+
+    /**
+     * 总数量，未知时为0
+     */
+    private int totalWork;
+
+    /**
+     * 事件说明
+     */
+    private String message;
+
+    /**
+     * 事件时间
+     */
+    private Date time = new Date();
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getProjectName() {
+        return projectName;
+    }
+
+    public void setProjectName(String projectName) {
+        this.projectName = projectName;
+    }
+
+    public String getTask() {
+        return task;
+    }
+
+    public void setTask(String task) {
+        this.task = task;
+    }
+
+    public int getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(int completed) {
+        this.completed = completed;
+    }
+
+    public int getTotalWork() {
+        return totalWork;
+    }
+
+    public void setTotalWork(int totalWork) {
+        this.totalWork = totalWork;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Date getTime() {
+        return time;
+    }
+
+    public void setTime(Date time) {
+        this.time = time;
+    }
+}
@@ -0,0 +1,152 @@
+package com.geostar.geostack.git_branch_manager.pojo;
+
+import java.util.Date;
+
+/**
+ * 单个项目最近一次仓库维护的结果
+ */
+public class MaintenanceReport {
+
+    /**
+     * 项目名称
+     */
+    private String projectName;
+
+    /**
+     * 维护完成时间
+     */
+    private Date maintainTime;
+
+    /**
+     * 维护耗时，单位毫秒
+     */
+    private long duration;
+
+    /**
+     * 维护前的松散对象数
+     */
+    private long looseObjectsBefore;
+
+    /**
+     * 维护后的松散对象数
+     */
+    private long looseObjectsAfter;
+
+    /**
+     * 维护前的pack文件数
+     */
+    private long packFilesBefore;
+
+    /**
+     * 维护后的pack文件数
+     */
+    private long packFilesAfter;
+
+    /**
+     * 维护后pack文件的总字节数
+     */
+    private long packSize;
+
+    /**
+     * 维护后松散引用数
+     */
+    private long looseRefs;
+
+    /**
+     * 维护后打包引用数
+     */
+    private long packedRefs;
+
+    /**
+     * 出错时的异常信息
+     */
+    private String message;
+
+    public String getProjectName() {
+        return projectName;
+    }
+
+    public void setProjectName(String projectName) {
+        this.projectName = projectName;
+    }
+
+    public Date getMaintainTime() {
+        return maintainTime;
+    }
+
+    public void setMaintainTime(Date maintainTime) {
+        this.maintainTime = maintainTime;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+
+    public void setDuration(long duration) {
+        this.duration = duration;
+    }
+
+    public long getLooseObjectsBefore() {
+        return looseObjectsBefore;
+    }
+
+    public void setLooseObjectsBefore(long looseObjectsBefore) {
+        this.looseObjectsBefore = looseObjectsBefore;
+    }
+
+    public long getLooseObjectsAfter() {
+        return looseObjectsAfter;
+    }
+
+    public void setLooseObjectsAfter(long looseObjectsAfter) {
+        this.looseObjectsAfter = looseObjectsAfter;
+    }
+
+    public long getPackFilesBefore() {
+        return packFilesBefore;
+    }
+
+    public void setPackFilesBefore(long packFilesBefore) {
+        this.packFilesBefore = packFilesBefore;
+    }
+
+    public long getPackFilesAfter() {
+        return packFilesAfter;
+    }
+
+    public void setPackFilesAfter(long packFilesAfter) {
+        this.packFilesAfter = packFilesAfter;
+    }
+
+    public long getPackSize() {
+        return packSize;
+    }
+
+    public void setPackSize(long packSize) {
+        this.packSize = packSize;
+    }
+
+    public long getLooseRefs() {
+        return looseRefs;
+    }
+
+    public void setLooseRefs(long looseRefs) {
+        this.looseRefs = looseRefs;
+    }
+
+    public long getPackedRefs() {
+        return packedRefs;
+    }
+
+    public void setPackedRefs(long packedRefs) {
+        this.packedRefs = packedRefs;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
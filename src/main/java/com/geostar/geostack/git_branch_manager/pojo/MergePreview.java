@@ -0,0 +1,60 @@
+package com.geostar.geostack.git_branch_manager.pojo;
+
+import com.geostar.geostack.git_branch_manager.common.MergePreviewStatusEnum;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 单个项目的合并预检结果
+ */
+public class MergePreview {
+
+    /**
+     * 项目名称
+     */
+    private String projectName;
+
+    /**
+     * 预检结果
+     */
+    private MergePreviewStatusEnum status;
+
+    /**
+     * 冲突文件集合
+     */
+    private final List<String> conflicts = new ArrayList<>();
+
+    /**
+     * 结果说明，出错时为异常信息
+     */
+    private String message;
+
+    public String getProjectName() {
+        return projectName;
+    }
+
+    public void setProjectName(String projectName) {
+        this.projectName = projectName;
+    }
+
+    public MergePreviewStatusEnum getStatus() {
+        return status;
+    }
+
+    public void setStatus(MergePreviewStatusEnum status) {
+        this.status = status;
+    }
+
+    public List<String> getConflicts() {
+        return conflicts;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,37 @@
+package com.geostar.geostack.git_branch_manager.pojo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 项目分组，分组名称为配置中的键
+ */
+public class ProjectGroup {
+
+    /**
+     * 分组包含的项目，可填写项目名称或远程地址
+     */
+    private final List<String> projects = new ArrayList<>();
+
+    /**
+     * 对该分组批量操作时的并发项目数，0表示使用batchConcurrency
+     */
+    private int concurrency;
+
+    public List<String> getProjects() {
+        return projects;
+    }
+
+    public void setProjects(List<String> projects) {
+        this.projects.clear();
+        this.projects.addAll(projects);
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+}
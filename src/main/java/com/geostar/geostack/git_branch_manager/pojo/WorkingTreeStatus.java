@@ -0,0 +1,60 @@
+package com.geostar.geostack.git_branch_manager.pojo;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 工作区文件状态
+ */
+public class WorkingTreeStatus {
+
+    /**
+     * 新增文件集合
+     */
+    private final Set<String> untrackedSet = new HashSet<>();
+
+    /**
+     * 修改文件集合
+     */
+    private final Set<String> modifiedSet = new HashSet<>();
+
+    /**
+     * 删除文件集合
+     */
+    private final Set<String> missingSet = new HashSet<>();
+
+    /**
+     * 冲突文件集合
+     */
+    private final Set<String> conflictingSet = new HashSet<>();
+
+    public Set<String> getUntrackedSet() {
+        return untrackedSet;
+    }
+
+    public Set<String> getModifiedSet() {
+        return modifiedSet;
+    }
+
+    public Set<String> getMissingSet() {
+        return missingSet;
+    }
+
+    public Set<String> getConflictingSet() {
+        return conflictingSet;
+    }
+
+    /**
+     * 复制当前状态
+     *
+     * @return
+     */
+    public WorkingTreeStatus copy() {
+        WorkingTreeStatus status = new WorkingTreeStatus();
+        status.untrackedSet.addAll(untrackedSet);
+        status.modifiedSet.addAll(modifiedSet);
+        status.missingSet.addAll(missingSet);
+        status.conflictingSet.addAll(conflictingSet);
+        return status;
+    }
+}
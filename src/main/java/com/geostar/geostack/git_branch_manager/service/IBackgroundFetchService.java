@@ -0,0 +1,10 @@
+package com.geostar.geostack.git_branch_manager.service;
+
+public interface IBackgroundFetchService {
+
+    /**
+     * 立即发起一轮后台拉取，各项目按随机延时错开执行，上一轮尚未完成的项目跳过
+     */
+    void fetchAll();
+
+}
@@ -0,0 +1,68 @@
+package com.geostar.geostack.git_branch_manager.service;
+
+import com.geostar.geostack.git_branch_manager.common.JobEventListener;
+import com.geostar.geostack.git_branch_manager.common.ProjectProgressTask;
+import com.geostar.geostack.git_branch_manager.pojo.BatchJob;
+import com.geostar.geostack.git_branch_manager.pojo.GitProject;
+
+import java.util.List;
+
+public interface IBatchJobService {
+
+    /**
+     * 提交后台批量任务，立即返回任务信息
+     *
+     * @param operation  操作名称
+     * @param projects
+     * @param task
+     * @param onFinished 所有项目处理完毕后执行，可为null
+     * @return
+     */
+    BatchJob submit(String operation, List<GitProject> projects, ProjectProgressTask task, Runnable onFinished);
+
+    /**
+     * 提交后台批量任务，同时执行的项目数不超过concurrency，立即返回任务信息
+     *
+     * @param operation   操作名称
+     * @param projects
+     * @param concurrency 同时执行的项目数
+     * @param task
+     * @param onFinished  所有项目处理完毕后执行，可为null
+     * @return
+     */
+    BatchJob submit(String operation, List<GitProject> projects, int concurrency, ProjectProgressTask task, Runnable onFinished);
+
+    /**
+     * 获取任务信息
+     *
+     * @param jobId
+     * @return 任务不存在时返回null
+     */
+    BatchJob getJob(String jobId);
+
+    /**
+     * 获取最近的任务
+     *
+     * @return
+     */
+    List<BatchJob> getJobs();
+
+    /**
+     * 监听任务事件，先补发序号大于lastEventId的历史事件，再推送后续事件
+     *
+     * @param jobId
+     * @param lastEventId 已收到的最后一个事件序号，首次监听传0
+     * @param listener
+     * @return 任务不存在时返回false
+     */
+    boolean subscribe(String jobId, long lastEventId, JobEventListener listener);
+
+    /**
+     * 取消监听任务事件，尚未推送的事件不再推送
+     *
+     * @param jobId
+     * @param listener
+     */
+    void unsubscribe(String jobId, JobEventListener listener);
+
+}
@@ -0,0 +1,41 @@
+package com.geostar.geostack.git_branch_manager.service;
+
+import com.geostar.geostack.git_branch_manager.common.ProjectTask;
+import com.geostar.geostack.git_branch_manager.pojo.BatchResult;
+import com.geostar.geostack.git_branch_manager.pojo.GitProject;
+
+import java.util.List;
+
+public interface IBatchTaskService {
+
+    /**
+     * 并行对一组项目执行同一操作，单个项目超时后记为超时并继续等待其它项目，不影响其它项目
+     *
+     * @param projects
+     * @param task
+     * @return 按项目顺序返回每个项目的执行结果
+     */
+    List<BatchResult> execute(List<GitProject> projects, ProjectTask task);
+
+    /**
+     * 并行对一组项目执行同一操作，同时执行的项目数不超过concurrency，
+     * 排队中的项目不占用线程池，超时的项目在真正结束前仍占用名额
+     *
+     * @param projects
+     * @param concurrency 同时执行的项目数，超过线程池大小时以线程池大小为准
+     * @param task
+     * @return 按项目顺序返回每个项目的执行结果
+     */
+    List<BatchResult> execute(List<GitProject> projects, int concurrency, ProjectTask task);
+
+    /**
+     * 并行对一组项目执行只读取本地仓库和工作区的操作，使用独立的线程池，并发数为CPU核数，
+     * 批量操作线程池被拉取、推送等网络操作占满时不受影响
+     *
+     * @param projects
+     * @param task
+     * @return 按项目顺序返回每个项目的执行结果
+     */
+    List<BatchResult> executeLocal(List<GitProject> projects, ProjectTask task);
+
+}
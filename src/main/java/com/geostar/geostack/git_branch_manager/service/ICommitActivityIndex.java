@@ -0,0 +1,49 @@
+package com.geostar.geostack.git_branch_manager.service;
+
+import com.geostar.geostack.git_branch_manager.common.ActivityPeriodEnum;
+import com.geostar.geostack.git_branch_manager.pojo.ContributorActivity;
+import com.geostar.geostack.git_branch_manager.pojo.GitLog;
+import com.geostar.geostack.git_branch_manager.pojo.GitProject;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface ICommitActivityIndex {
+
+    /**
+     * 将新提交计入项目的贡献统计，已统计的提交忽略
+     *
+     * @param gitProject
+     * @param added
+     */
+    void add(GitProject gitProject, List<GitLog> added);
+
+    /**
+     * 从项目的贡献统计中移除提交，未索引的提交忽略
+     *
+     * @param gitProject
+     * @param removed
+     */
+    void remove(GitProject gitProject, List<GitLog> removed);
+
+    /**
+     * 用项目的全部提交重建贡献统计
+     *
+     * @param gitProject
+     * @param logs
+     */
+    void replace(GitProject gitProject, List<GitLog> logs);
+
+    /**
+     * 汇总指定项目的贡献统计
+     *
+     * @param projectNames 参与汇总的项目
+     * @param username     为空时汇总所有作者
+     * @param period       统计周期
+     * @param since        开始日期，包含，为空时不限
+     * @param until        结束日期，包含，为空时不限
+     * @return 按提交总数倒序排列的作者统计
+     */
+    List<ContributorActivity> getActivity(List<String> projectNames, String username, ActivityPeriodEnum period, LocalDate since, LocalDate until);
+
+}
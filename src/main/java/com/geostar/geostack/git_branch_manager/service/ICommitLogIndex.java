@@ -0,0 +1,48 @@
+package com.geostar.geostack.git_branch_manager.service;
+
+import com.geostar.geostack.git_branch_manager.pojo.GitLog;
+import com.geostar.geostack.git_branch_manager.pojo.GitProject;
+import org.eclipse.jgit.lib.Repository;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+
+public interface ICommitLogIndex {
+
+    /**
+     * 提交日志排序规则，提交时间倒序，时间相同时按commitid排序
+     */
+    Comparator<GitLog> LOG_ORDER = (log0, log1) -> {
+        int result = log1.getCommitTime().compareTo(log0.getCommitTime());
+        return result != 0 ? result : log0.getCommitId().compareTo(log1.getCommitId());
+    };
+
+    /**
+     * 跨项目游标分页的排序规则，提交时间倒序，时间相同时按项目名称、再按commitid排序，使每条日志的位置唯一；
+     * 同一项目内与LOG_ORDER一致，各项目按LOG_ORDER排好的日志可直接归并
+     */
+    Comparator<GitLog> CURSOR_ORDER = Comparator.comparing(GitLog::getCommitTime).reversed()
+            .thenComparing(GitLog::getProjectName)
+            .thenComparing(GitLog::getCommitId);
+
+    /**
+     * 获取项目当前分支的提交日志，按提交时间倒序排列，HEAD变化时先增量更新索引
+     *
+     * @param gitProject
+     * @param repository
+     * @return 不可修改的日志集合
+     * @throws IOException
+     */
+    List<GitLog> getCommitLogs(GitProject gitProject, Repository repository) throws IOException;
+
+    /**
+     * 将项目当前分支的新提交写入索引，只遍历上次索引位置之后的提交
+     *
+     * @param gitProject
+     * @param repository
+     * @throws IOException
+     */
+    void update(GitProject gitProject, Repository repository) throws IOException;
+
+}
@@ -0,0 +1,43 @@
+package com.geostar.geostack.git_branch_manager.service;
+
+import com.geostar.geostack.git_branch_manager.pojo.GitLog;
+import com.geostar.geostack.git_branch_manager.pojo.GitProject;
+
+import java.util.List;
+
+public interface ICommitSearchIndex {
+
+    /**
+     * 将新提交加入项目的检索索引，已索引的提交忽略
+     *
+     * @param gitProject
+     * @param added
+     */
+    void add(GitProject gitProject, List<GitLog> added);
+
+    /**
+     * 从项目的检索索引中移除提交，未索引的提交忽略
+     *
+     * @param gitProject
+     * @param removed
+     */
+    void remove(GitProject gitProject, List<GitLog> removed);
+
+    /**
+     * 用项目的全部提交重建检索索引
+     *
+     * @param gitProject
+     * @param logs
+     */
+    void replace(GitProject gitProject, List<GitLog> logs);
+
+    /**
+     * 在项目的提交日志信息、作者名称和邮箱中检索，所有检索词都命中的提交才返回
+     *
+     * @param projectName
+     * @param query       检索内容，按字母数字串和汉字拆分为检索词，不区分大小写
+     * @return 按提交时间倒序排列的提交
+     */
+    List<GitLog> search(String projectName, String query);
+
+}
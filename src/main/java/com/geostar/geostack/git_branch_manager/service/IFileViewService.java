@@ -0,0 +1,22 @@
+package com.geostar.geostack.git_branch_manager.service;
+
+import com.geostar.geostack.git_branch_manager.pojo.FileLines;
+import com.geostar.geostack.git_branch_manager.pojo.GitProject;
+
+import java.io.IOException;
+
+public interface IFileViewService {
+
+    /**
+     * 按行分页读取项目工作区中的文件，只读取所需的字节范围，二进制文件不返回内容
+     *
+     * @param gitProject
+     * @param fileName   相对于项目目录的文件路径
+     * @param startLine  起始行号，从0开始
+     * @param lineCount  读取的行数
+     * @return
+     * @throws IOException 文件不存在或不在项目目录下时抛出
+     */
+    FileLines readLines(GitProject gitProject, String fileName, int startLine, int lineCount) throws IOException;
+
+}
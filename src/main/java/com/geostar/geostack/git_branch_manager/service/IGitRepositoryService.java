@@ -1,17 +1,35 @@
 package com.geostar.geostack.git_branch_manager.service;
 
+import com.geostar.geostack.git_branch_manager.common.ActivityPeriodEnum;
+import com.geostar.geostack.git_branch_manager.common.CursorPage;
 import com.geostar.geostack.git_branch_manager.common.Page;
+import com.geostar.geostack.git_branch_manager.common.ProjectGroupNotFoundException;
+import com.geostar.geostack.git_branch_manager.pojo.ContributorActivity;
 import com.geostar.geostack.git_branch_manager.pojo.GitLog;
 import com.geostar.geostack.git_branch_manager.pojo.GitProject;
+import com.geostar.geostack.git_branch_manager.pojo.MergePreview;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.api.errors.RefNotFoundException;
+import org.eclipse.jgit.lib.ProgressMonitor;
 
 import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 public interface IGitRepositoryService {
 
     List<GitProject> getAllGitProject();
 
+    /**
+     * 获取分组包含的项目
+     *
+     * @param group 分组名称，为空时返回全部项目
+     * @return
+     * @throws ProjectGroupNotFoundException 分组不存在时抛出
+     */
+    List<GitProject> getGitProjects(String group);
+
     /**
      * 克隆或者拉取项目
      *
@@ -20,6 +38,23 @@ public interface IGitRepositoryService {
      */
     boolean cloneOrPull(GitProject gitProject) throws IOException, GitAPIException;
 
+    /**
+     * 克隆或者拉取项目，并上报传输进度
+     *
+     * @param gitProject
+     * @param monitor
+     * @return
+     */
+    boolean cloneOrPull(GitProject gitProject, ProgressMonitor monitor) throws IOException, GitAPIException;
+
+    /**
+     * 拉取远程分支到远程跟踪分支，不合并到工作区
+     *
+     * @param gitProject
+     * @return 项目尚未克隆时返回false
+     */
+    boolean fetch(GitProject gitProject) throws IOException, GitAPIException;
+
     /**
      * 更新项目信息
      *
@@ -51,6 +86,16 @@ public interface IGitRepositoryService {
      */
     boolean push(GitProject gitProject, String message) throws IOException, GitAPIException;
 
+    /**
+     * 推送代码，并上报传输进度
+     *
+     * @param gitProject
+     * @param message
+     * @param monitor
+     * @return
+     */
+    boolean push(GitProject gitProject, String message, ProgressMonitor monitor) throws IOException, GitAPIException;
+
     /**
      * 删除当前分支分支
      *
@@ -67,6 +112,14 @@ public interface IGitRepositoryService {
      */
     List<String> getBranchIntersect(List<GitProject> projects);
 
+    /**
+     * 获取一组项目中每个分支被多少个项目拥有
+     *
+     * @param projects
+     * @return 分支名称到项目数，按项目数倒序
+     */
+    Map<String, Integer> getBranchCoverage(List<GitProject> projects);
+
     /**
      * 创建标签
      *
@@ -83,8 +136,10 @@ public interface IGitRepositoryService {
      * @param gitProject
      * @param tagName
      * @param branchName
+     * @return 仓库不存在时返回false
+     * @throws RefNotFoundException 标签不存在时抛出
      */
-    void createBranchByTag(GitProject gitProject, String tagName, String branchName) throws IOException, GitAPIException;
+    boolean createBranchByTag(GitProject gitProject, String tagName, String branchName) throws IOException, GitAPIException;
 
     /**
      * 获取所有项目的标签交集
@@ -95,13 +150,13 @@ public interface IGitRepositoryService {
     List<String> getTagIntersect(List<GitProject> projects);
 
     /**
-     * 获取文件内容
+     * 获取一组项目中每个标签被多少个项目拥有
      *
-     * @param gitProject
-     * @param fileName
-     * @return
+     * @param projects
+     * @return 标签名称到项目数，按项目数倒序
      */
-    String getFileContent(GitProject gitProject, String fileName) throws IOException;
+    Map<String, Integer> getTagCoverage(List<GitProject> projects);
+
 
     /**
      * 删除标签
@@ -123,7 +178,17 @@ public interface IGitRepositoryService {
     boolean mergeBranch(GitProject gitProject, String currWorkBranch, String sourceBranch, String message) throws IOException, GitAPIException;
 
     /**
-     * 获取日志
+     * 合并预检，在内存中试合并被合并分支到工作分支，不检出分支、不修改工作区和引用、不访问远程
+     *
+     * @param gitProject
+     * @param currWorkBranch 当前工作分支
+     * @param sourceBranch   被合并的分支
+     * @return
+     */
+    MergePreview previewMerge(GitProject gitProject, String currWorkBranch, String sourceBranch) throws IOException, GitAPIException;
+
+    /**
+     * 分页获取日志，按提交时间倒序，结果写入page的当前页数据
      *
      * @param page
      * @param username
@@ -131,4 +196,38 @@ public interface IGitRepositoryService {
      */
     void getCommitLogs(Page<GitLog> page, String username, String projectName) throws IOException, GitAPIException;
 
+    /**
+     * 游标分页获取日志，按提交时间倒序，时间相同时按项目名称、commitid排序，每页从上一页游标之后继续读取
+     *
+     * @param cursor      上一页返回的游标，为空时从最新的提交开始
+     * @param username    为空时不限作者
+     * @param projectName 为空时获取所有项目
+     * @param since       开始日期，包含，为空时不限
+     * @param until       结束日期，包含，为空时不限
+     * @param pageSize
+     * @return
+     */
+    CursorPage<GitLog> getCommitLogsByCursor(String cursor, String username, String projectName, LocalDate since, LocalDate until, int pageSize) throws IOException, GitAPIException;
+
+    /**
+     * 分页检索日志信息、作者名称和邮箱包含检索内容的提交，按提交时间倒序，结果写入page的当前页数据
+     *
+     * @param page
+     * @param query
+     * @param projectName 为空时检索所有项目
+     */
+    void searchCommitLogs(Page<GitLog> page, String query, String projectName) throws IOException, GitAPIException;
+
+    /**
+     * 获取各作者在统计范围内的提交数及各周期的提交数，按提交总数倒序
+     *
+     * @param projectName 为空时统计所有项目
+     * @param username    为空时统计所有作者
+     * @param period      统计周期
+     * @param since       开始日期，包含，为空时不限
+     * @param until       结束日期，包含，为空时不限
+     * @return
+     */
+    List<ContributorActivity> getCommitActivity(String projectName, String username, ActivityPeriodEnum period, LocalDate since, LocalDate until) throws IOException, GitAPIException;
+
 }
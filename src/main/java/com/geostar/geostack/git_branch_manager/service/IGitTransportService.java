@@ -0,0 +1,31 @@
+package com.geostar.geostack.git_branch_manager.service;
+
+import com.geostar.geostack.git_branch_manager.pojo.GitProject;
+import org.eclipse.jgit.transport.CredentialsProvider;
+
+public interface IGitTransportService {
+
+    /**
+     * 获取项目所在主机共用的凭据，账号密码未变化时同一主机复用同一个凭据对象
+     *
+     * @param gitProject
+     * @return
+     */
+    CredentialsProvider getCredentialsProvider(GitProject gitProject);
+
+    /**
+     * 获取项目所在的主机名
+     *
+     * @param gitProject
+     * @return 无法解析时返回空字符串
+     */
+    String getHost(GitProject gitProject);
+
+    /**
+     * 获取Git传输的读写超时，与批量操作的单项目超时一致，连接无数据超过该时间后传输失败
+     *
+     * @return 单位秒，0表示不超时
+     */
+    int getTimeout();
+
+}
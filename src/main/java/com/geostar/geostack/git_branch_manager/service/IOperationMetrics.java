@@ -0,0 +1,30 @@
+package com.geostar.geostack.git_branch_manager.service;
+
+import com.geostar.geostack.git_branch_manager.common.GitOperation;
+import org.eclipse.jgit.api.errors.GitAPIException;
+
+import java.io.IOException;
+
+public interface IOperationMetrics {
+
+    /**
+     * 执行并统计一次服务操作，耗时按网络传输和本地处理分开记录，嵌套的网络传输计入网络耗时
+     *
+     * @param operation   操作名称
+     * @param projectName 项目名称
+     * @param gitOperation
+     * @return 操作结果
+     */
+    <T> T record(String operation, String projectName, GitOperation<T> gitOperation) throws IOException, GitAPIException;
+
+    /**
+     * 执行并统计一次与Git服务器之间的传输，耗时同时计入当前服务操作的网络耗时
+     *
+     * @param transport   传输类型，clone、pull、fetch或push
+     * @param projectName 项目名称
+     * @param gitOperation
+     * @return 传输结果
+     */
+    <T> T network(String transport, String projectName, GitOperation<T> gitOperation) throws IOException, GitAPIException;
+
+}
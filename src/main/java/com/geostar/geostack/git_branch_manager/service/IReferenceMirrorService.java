@@ -0,0 +1,41 @@
+package com.geostar.geostack.git_branch_manager.service;
+
+import com.geostar.geostack.git_branch_manager.pojo.GitProject;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ProgressMonitor;
+import org.eclipse.jgit.lib.Repository;
+
+import java.io.File;
+import java.io.IOException;
+
+public interface IReferenceMirrorService {
+
+    /**
+     * 是否开启本地镜像
+     *
+     * @return
+     */
+    boolean isEnabled();
+
+    /**
+     * 准备项目远程地址对应的本地镜像，不存在时创建，并从远程仓库更新到最新，用于克隆
+     *
+     * @param gitProject
+     * @param monitor
+     * @return 镜像仓库目录
+     * @throws IOException
+     * @throws GitAPIException
+     */
+    File prepare(GitProject gitProject, ProgressMonitor monitor) throws IOException, GitAPIException;
+
+    /**
+     * 用项目工作区的远程跟踪分支和标签更新本地镜像，只读写本地磁盘
+     *
+     * @param gitProject
+     * @param workspace  项目工作区仓库
+     * @throws IOException
+     * @throws GitAPIException
+     */
+    void update(GitProject gitProject, Repository workspace) throws IOException, GitAPIException;
+
+}
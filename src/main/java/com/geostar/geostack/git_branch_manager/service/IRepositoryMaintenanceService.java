@@ -0,0 +1,28 @@
+package com.geostar.geostack.git_branch_manager.service;
+
+import com.geostar.geostack.git_branch_manager.pojo.MaintenanceReport;
+
+import java.util.List;
+
+public interface IRepositoryMaintenanceService {
+
+    /**
+     * 立即发起一轮维护，从上一轮停止的项目继续，超出时间预算后停止，跳过正在使用的项目
+     */
+    void maintainAll();
+
+    /**
+     * 在维护线程中发起一轮维护，立即返回
+     *
+     * @return 已有一轮维护正在进行时返回false
+     */
+    boolean submitMaintainAll();
+
+    /**
+     * 获取各项目最近一次维护的结果
+     *
+     * @return 按项目配置顺序排列，尚未维护的项目不返回
+     */
+    List<MaintenanceReport> getReports();
+
+}
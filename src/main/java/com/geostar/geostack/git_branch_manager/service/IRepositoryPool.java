@@ -0,0 +1,62 @@
+package com.geostar.geostack.git_branch_manager.service;
+
+import com.geostar.geostack.git_branch_manager.common.RepositoryHandle;
+import com.geostar.geostack.git_branch_manager.pojo.GitProject;
+
+import java.io.IOException;
+import java.util.concurrent.locks.ReadWriteLock;
+
+public interface IRepositoryPool {
+
+    /**
+     * 借出项目的仓库句柄，同一项目复用同一个Repository对象，使用完毕后必须关闭句柄
+     *
+     * @param gitProject
+     * @return
+     * @throws IOException 项目仓库不存在时抛出RepositoryNotFoundException
+     */
+    RepositoryHandle acquire(GitProject gitProject) throws IOException;
+
+    /**
+     * 借出项目的仓库句柄并持有项目的写锁，关闭句柄时释放写锁；
+     * 检出、提交、合并、拉取、gc和写回索引等修改仓库或工作区的操作使用，同一项目的写操作依次进行
+     *
+     * @param gitProject
+     * @return
+     * @throws IOException 项目仓库不存在时抛出RepositoryNotFoundException
+     */
+    RepositoryHandle acquireForWrite(GitProject gitProject) throws IOException;
+
+    /**
+     * 尝试借出项目的仓库句柄并持有项目的写锁，写锁或读锁被其它操作持有时不等待
+     *
+     * @param gitProject
+     * @return 锁被占用时返回null
+     * @throws IOException 项目仓库不存在时抛出RepositoryNotFoundException
+     */
+    RepositoryHandle tryAcquireForWrite(GitProject gitProject) throws IOException;
+
+    /**
+     * 获取项目的读写锁，读取工作区状态时持有读锁；仓库尚不存在的操作（如克隆）直接使用写锁
+     *
+     * @param gitProject
+     * @return
+     */
+    ReadWriteLock getLock(GitProject gitProject);
+
+    /**
+     * 使项目缓存的仓库失效，仍在使用中的仓库在最后一个句柄归还后关闭
+     *
+     * @param gitProject
+     */
+    void invalidate(GitProject gitProject);
+
+    /**
+     * 获取项目仓库的空闲时间
+     *
+     * @param gitProject
+     * @return 单位毫秒，正在使用时返回0，未打开时返回Long.MAX_VALUE
+     */
+    long getIdleTime(GitProject gitProject);
+
+}
@@ -0,0 +1,38 @@
+package com.geostar.geostack.git_branch_manager.service;
+
+import java.util.concurrent.TimeUnit;
+
+public interface IStartupWarmupService {
+
+    /**
+     * 预热是否已完成，未开启预热时始终为true
+     *
+     * @return
+     */
+    boolean isReady();
+
+    /**
+     * 已完成预热的项目数
+     *
+     * @return
+     */
+    int getCompletedCount();
+
+    /**
+     * 需要预热的项目总数
+     *
+     * @return
+     */
+    int getTotalCount();
+
+    /**
+     * 等待预热完成
+     *
+     * @param timeout 为0时不等待
+     * @param unit
+     * @return 是否已完成
+     * @throws InterruptedException
+     */
+    boolean awaitReady(long timeout, TimeUnit unit) throws InterruptedException;
+
+}
@@ -0,0 +1,26 @@
+package com.geostar.geostack.git_branch_manager.service;
+
+import com.geostar.geostack.git_branch_manager.pojo.GitProject;
+import com.geostar.geostack.git_branch_manager.pojo.WorkingTreeStatus;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+
+public interface IWorkingTreeStatusCache {
+
+    /**
+     * 获取项目工作区状态，工作区和索引均未变化时直接返回缓存，否则只重新扫描发生变化的路径
+     *
+     * @param gitProject
+     * @param git
+     * @return
+     */
+    WorkingTreeStatus getStatus(GitProject gitProject, Git git) throws GitAPIException;
+
+    /**
+     * 清除项目的状态缓存，下次获取时完整扫描
+     *
+     * @param gitProject
+     */
+    void invalidate(GitProject gitProject);
+
+}
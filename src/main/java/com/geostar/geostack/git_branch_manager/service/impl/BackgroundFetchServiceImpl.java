@@ -0,0 +1,118 @@
+package com.geostar.geostack.git_branch_manager.service.impl;
+
+import com.geostar.geostack.git_branch_manager.config.GitRepositoryConfig;
+import com.geostar.geostack.git_branch_manager.pojo.GitProject;
+import com.geostar.geostack.git_branch_manager.service.IBackgroundFetchService;
+import com.geostar.geostack.git_branch_manager.service.IGitRepositoryService;
+import com.geostar.geostack.git_branch_manager.service.IGitTransportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 后台定时拉取所有项目的远程分支，只更新远程跟踪分支，不合并到工作区，
+ * 各项目在每轮中随机错开开始时间，并限制同一Git服务器同时进行的拉取数，
+ * 使页面展示和分支类型判断只读取本地状态即可得到较新的远程信息
+ */
+@Service("backgroundFetchService")
+public class BackgroundFetchServiceImpl implements IBackgroundFetchService {
+    private static final Logger logger = LoggerFactory.getLogger(BackgroundFetchServiceImpl.class);
+    @Autowired
+    private GitRepositoryConfig gitRepositoryConfig;
+    @Autowired
+    private IGitRepositoryService gitRepositoryService;
+    @Autowired
+    private IGitTransportService gitTransportService;
+    /**
+     * 正在等待或执行拉取的项目
+     */
+    private final Set<String> pendingProjects = ConcurrentHashMap.newKeySet();
+    /**
+     * 各主机的并发拉取许可
+     */
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    private ExecutorService fetchExecutor;
+
+    @PostConstruct
+    public void init() {
+        long interval = gitRepositoryConfig.getFetchInterval();
+        if (interval <= 0) {
+            logger.info("后台拉取未开启");
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "git-fetch-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger threadIndex = new AtomicInteger();
+        fetchExecutor = Executors.newFixedThreadPool(Math.max(1, gitRepositoryConfig.getBatchConcurrency()), runnable -> {
+            Thread thread = new Thread(runnable, "git-fetch-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::fetchAll, interval, interval, TimeUnit.SECONDS);
+        logger.info("后台拉取初始化完毕，间隔：{}秒，随机错开：{}秒，每主机并发数：{}", interval,
+                gitRepositoryConfig.getFetchJitter(), gitRepositoryConfig.getFetchHostConcurrency());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            fetchExecutor.shutdownNow();
+        }
+    }
+
+    @Override
+    public void fetchAll() {
+        if (scheduler == null || scheduler.isShutdown()) {
+            return;
+        }
+        long jitter = TimeUnit.SECONDS.toMillis(Math.max(0, gitRepositoryConfig.getFetchJitter()));
+        for (GitProject gitProject : gitRepositoryService.getAllGitProject()) {
+            if (!pendingProjects.add(gitProject.getName())) {
+                logger.debug("上一轮后台拉取尚未完成，跳过：{}", gitProject.getName());
+                continue;
+            }
+            long delay = jitter > 0 ? ThreadLocalRandom.current().nextLong(jitter) : 0;
+            scheduler.schedule(() -> fetchExecutor.execute(() -> fetch(gitProject)), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void fetch(GitProject gitProject) {
+        Semaphore permits = hostPermits.computeIfAbsent(gitTransportService.getHost(gitProject),
+                host -> new Semaphore(Math.max(1, gitRepositoryConfig.getFetchHostConcurrency())));
+        try {
+            permits.acquire();
+            try {
+                gitRepositoryService.fetch(gitProject);
+            } finally {
+                permits.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.warn("后台拉取出错：{}，原因：{}", gitProject.getRemoteUrl(), e.getMessage());
+        } finally {
+            pendingProjects.remove(gitProject.getName());
+        }
+    }
+}
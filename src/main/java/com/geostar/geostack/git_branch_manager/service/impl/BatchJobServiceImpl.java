@@ -0,0 +1,418 @@
+package com.geostar.geostack.git_branch_manager.service.impl;
+
+import com.geostar.geostack.git_branch_manager.common.BatchJobStatusEnum;
+import com.geostar.geostack.git_branch_manager.common.JobEventListener;
+import com.geostar.geostack.git_branch_manager.common.ProjectProgressTask;
+import com.geostar.geostack.git_branch_manager.config.GitRepositoryConfig;
+import com.geostar.geostack.git_branch_manager.pojo.BatchJob;
+import com.geostar.geostack.git_branch_manager.pojo.BatchResult;
+import com.geostar.geostack.git_branch_manager.pojo.GitProject;
+import com.geostar.geostack.git_branch_manager.pojo.JobEvent;
+import com.geostar.geostack.git_branch_manager.service.IBatchJobService;
+import com.geostar.geostack.git_branch_manager.service.IBatchTaskService;
+import org.eclipse.jgit.lib.ProgressMonitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service("batchJobService")
+public class BatchJobServiceImpl implements IBatchJobService {
+    private static final Logger logger = LoggerFactory.getLogger(BatchJobServiceImpl.class);
+    /**
+     * 保留的最大任务数，超过后移除最早结束的任务
+     */
+    private static final int MAX_JOBS = 20;
+    /**
+     * 单个任务保留的最大事件数，超过后不再保留进度事件，仍推送给在线的监听者
+     */
+    private static final int MAX_EVENTS = 10000;
+    /**
+     * 同一项目进度事件的最小间隔，单位毫秒
+     */
+    private static final long PROGRESS_INTERVAL = 500;
+    @Autowired
+    private GitRepositoryConfig gitRepositoryConfig;
+    @Autowired
+    private IBatchTaskService batchTaskService;
+
+    private final Map<String, JobState> jobs = new LinkedHashMap<>();
+
+    private ExecutorService jobExecutor;
+    /**
+     * 向监听者推送事件的线程池，推送阻塞时不影响执行任务的线程
+     */
+    private ExecutorService eventExecutor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        jobExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "git-job-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger eventThreadIndex = new AtomicInteger();
+        eventExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "git-job-event-" + eventThreadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        jobExecutor.shutdownNow();
+        eventExecutor.shutdownNow();
+    }
+
+    @Override
+    public BatchJob submit(String operation, List<GitProject> projects, ProjectProgressTask task, Runnable onFinished) {
+        return submit(operation, projects, gitRepositoryConfig.getBatchConcurrency(), task, onFinished);
+    }
+
+    @Override
+    public BatchJob submit(String operation, List<GitProject> projects, int concurrency, ProjectProgressTask task, Runnable onFinished) {
+        BatchJob job = new BatchJob();
+        job.setJobId(UUID.randomUUID().toString().replace("-", ""));
+        job.setOperation(operation);
+        job.setStatus(BatchJobStatusEnum.RUNNING);
+        job.setStartTime(new Date());
+        job.setProjectCount(projects.size());
+        JobState state = new JobState(job, eventExecutor);
+        synchronized (jobs) {
+            jobs.put(job.getJobId(), state);
+            removeExpiredJobs();
+        }
+        logger.info("后台任务提交：{}，操作：{}，项目数：{}", job.getJobId(), operation, projects.size());
+        jobExecutor.execute(() -> run(state, projects, concurrency, task, onFinished));
+        return job;
+    }
+
+    private void run(JobState state, List<GitProject> projects, int concurrency, ProjectProgressTask task, Runnable onFinished) {
+        List<BatchResult> results = batchTaskService.execute(projects, concurrency, gitProject -> {
+            state.publish(JobEvent.PROJECT_START, gitProject.getName(), null);
+            boolean result;
+            try {
+                result = task.execute(gitProject, new JobProgressMonitor(state, gitProject.getName()));
+            } catch (Exception e) {
+                state.projectFinished(gitProject.getName(), "失败：" + e.getMessage());
+                throw e;
+            }
+            state.projectFinished(gitProject.getName(), result ? "成功" : "跳过");
+            return result;
+        });
+        if (onFinished != null) {
+            try {
+                onFinished.run();
+            } catch (RuntimeException e) {
+                logger.error("后台任务收尾出错：" + state.job.getJobId(), e);
+            }
+        }
+        state.finish(results);
+        logger.info("后台任务结束：{}，操作：{}", state.job.getJobId(), state.job.getOperation());
+    }
+
+    @Override
+    public BatchJob getJob(String jobId) {
+        synchronized (jobs) {
+            JobState state = jobs.get(jobId);
+            return state == null ? null : state.job;
+        }
+    }
+
+    @Override
+    public List<BatchJob> getJobs() {
+        synchronized (jobs) {
+            List<BatchJob> result = new ArrayList<>();
+            for (JobState state : jobs.values()) {
+                result.add(state.job);
+            }
+            return result;
+        }
+    }
+
+    @Override
+    public boolean subscribe(String jobId, long lastEventId, JobEventListener listener) {
+        JobState state;
+        synchronized (jobs) {
+            state = jobs.get(jobId);
+        }
+        if (state == null) {
+            return false;
+        }
+        state.subscribe(lastEventId, listener);
+        return true;
+    }
+
+    @Override
+    public void unsubscribe(String jobId, JobEventListener listener) {
+        JobState state;
+        synchronized (jobs) {
+            state = jobs.get(jobId);
+        }
+        if (state != null) {
+            state.unsubscribe(listener);
+        }
+    }
+
+    private void removeExpiredJobs() {
+        Iterator<JobState> it = jobs.values().iterator();
+        while (jobs.size() > MAX_JOBS && it.hasNext()) {
+            if (BatchJobStatusEnum.FINISHED == it.next().job.getStatus()) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * 任务的事件记录和监听者，事件在锁内编号并放入各监听者的队列，在锁外推送
+     */
+    private static class JobState {
+
+        private final BatchJob job;
+
+        private final Executor eventExecutor;
+
+        private final List<JobEvent> events = new ArrayList<>();
+
+        private final List<Subscriber> subscribers = new ArrayList<>();
+
+        private long lastEventId;
+
+        private JobState(BatchJob job, Executor eventExecutor) {
+            this.job = job;
+            this.eventExecutor = eventExecutor;
+        }
+
+        private void subscribe(long afterEventId, JobEventListener listener) {
+            Subscriber subscriber = new Subscriber(listener);
+            synchronized (this) {
+                for (JobEvent event : events) {
+                    if (event.getId() > afterEventId) {
+                        subscriber.queue.add(event);
+                    }
+                }
+                if (BatchJobStatusEnum.RUNNING == job.getStatus()) {
+                    subscribers.add(subscriber);
+                }
+            }
+            schedule(subscriber);
+        }
+
+        private synchronized void unsubscribe(JobEventListener listener) {
+            subscribers.removeIf(subscriber -> {
+                if (subscriber.listener == listener) {
+                    subscriber.close();
+                    return true;
+                }
+                return false;
+            });
+        }
+
+        private void projectFinished(String projectName, String message) {
+            synchronized (this) {
+                job.setFinishedCount(job.getFinishedCount() + 1);
+            }
+            publish(JobEvent.PROJECT_FINISH, projectName, message);
+        }
+
+        private void finish(List<BatchResult> results) {
+            JobEvent event = new JobEvent();
+            event.setType(JobEvent.JOB_FINISH);
+            List<Subscriber> targets;
+            synchronized (this) {
+                job.setResults(results);
+                job.setEndTime(new Date());
+                job.setStatus(BatchJobStatusEnum.FINISHED);
+                targets = enqueue(event);
+                subscribers.clear();
+            }
+            targets.forEach(this::schedule);
+        }
+
+        private void publish(String type, String projectName, String message) {
+            JobEvent event = new JobEvent();
+            event.setType(type);
+            event.setProjectName(projectName);
+            event.setMessage(message);
+            publish(event);
+        }
+
+        private void publish(JobEvent event) {
+            List<Subscriber> targets;
+            synchronized (this) {
+                targets = enqueue(event);
+            }
+            targets.forEach(this::schedule);
+        }
+
+        /**
+         * 为事件编号并放入各监听者的队列，调用前需持有当前对象的锁
+         *
+         * @param event
+         * @return 需要推送的监听者
+         */
+        private List<Subscriber> enqueue(JobEvent event) {
+            event.setId(++lastEventId);
+            if (events.size() < MAX_EVENTS || !JobEvent.PROGRESS.equals(event.getType())) {
+                events.add(event);
+            }
+            for (Subscriber subscriber : subscribers) {
+                subscriber.queue.add(event);
+            }
+            return new ArrayList<>(subscribers);
+        }
+
+        /**
+         * 安排推送监听者队列中的事件，同一监听者同时只有一个线程推送，保证事件顺序
+         *
+         * @param subscriber
+         */
+        private void schedule(Subscriber subscriber) {
+            if (subscriber.queue.isEmpty() || !subscriber.draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                eventExecutor.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                subscriber.draining.set(false);
+            }
+        }
+
+        private void drain(Subscriber subscriber) {
+            JobEvent event;
+            while ((event = subscriber.queue.poll()) != null) {
+                if (!subscriber.deliver(event)) {
+                    unsubscribe(subscriber.listener);
+                    return;
+                }
+            }
+            subscriber.draining.set(false);
+            /**
+             * 放开推送标记前可能有新事件入队，需要重新检查
+             */
+            schedule(subscriber);
+        }
+    }
+
+    /**
+     * 任务事件的监听者及其待推送的事件
+     */
+    private static class Subscriber {
+
+        private final JobEventListener listener;
+
+        private final Queue<JobEvent> queue = new ConcurrentLinkedQueue<>();
+
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private volatile boolean closed;
+
+        private Subscriber(JobEventListener listener) {
+            this.listener = listener;
+        }
+
+        private void close() {
+            closed = true;
+            queue.clear();
+        }
+
+        private boolean deliver(JobEvent event) {
+            if (closed) {
+                return false;
+            }
+            try {
+                listener.onEvent(event);
+                return true;
+            } catch (IOException | RuntimeException e) {
+                logger.debug("任务事件推送失败，取消监听：{}", e.getMessage());
+                close();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 将JGit进度转换为任务事件，同一项目的进度按间隔节流
+     */
+    private static class JobProgressMonitor implements ProgressMonitor {
+
+        private final JobState state;
+
+        private final String projectName;
+
+        private String task;
+
+        private int totalWork;
+
+        private int completed;
+
+        private long lastPublish;
+
+        private JobProgressMonitor(JobState state, String projectName) {
+            this.state = state;
+            this.projectName = projectName;
+        }
+
+        @Override
+        public void start(int totalTasks) {
+        }
+
+        @Override
+        public void beginTask(String title, int totalWork) {
+            this.task = title;
+            this.totalWork = totalWork == UNKNOWN ? 0 : totalWork;
+            this.completed = 0;
+            publishProgress();
+        }
+
+        @Override
+        public void update(int completed) {
+            this.completed += completed;
+            if (System.currentTimeMillis() - lastPublish >= PROGRESS_INTERVAL) {
+                publishProgress();
+            }
+        }
+
+        @Override
+        public void endTask() {
+            publishProgress();
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return Thread.currentThread().isInterrupted();
+        }
+
+        private void publishProgress() {
+            lastPublish = System.currentTimeMillis();
+            JobEvent event = new JobEvent();
+            event.setType(JobEvent.PROGRESS);
+            event.setProjectName(projectName);
+            event.setTask(task);
+            event.setCompleted(completed);
+            event.setTotalWork(totalWork);
+            state.publish(event);
+        }
+    }
+}
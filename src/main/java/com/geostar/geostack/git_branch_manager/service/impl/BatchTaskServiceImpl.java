@@ -0,0 +1,270 @@
+package com.geostar.geostack.git_branch_manager.service.impl;
+
+import com.geostar.geostack.git_branch_manager.common.BatchStatusEnum;
+import com.geostar.geostack.git_branch_manager.common.ProjectTask;
+import com.geostar.geostack.git_branch_manager.config.GitRepositoryConfig;
+import com.geostar.geostack.git_branch_manager.pojo.BatchResult;
+import com.geostar.geostack.git_branch_manager.pojo.GitProject;
+import com.geostar.geostack.git_branch_manager.service.IBatchTaskService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+@Service("batchTaskService")
+public class BatchTaskServiceImpl implements IBatchTaskService {
+    private static final Logger logger = LoggerFactory.getLogger(BatchTaskServiceImpl.class);
+    /**
+     * 检查任务完成和超时的轮询间隔，单位毫秒
+     */
+    private static final long POLL_INTERVAL = 200;
+    @Autowired
+    private GitRepositoryConfig gitRepositoryConfig;
+
+    private ExecutorService executor;
+    /**
+     * 只读本地仓库的操作使用的线程池，不与网络操作争用批量操作线程池
+     */
+    private ExecutorService localExecutor;
+
+    private int localConcurrency;
+
+    @PostConstruct
+    public void init() {
+        int concurrency = Math.max(1, gitRepositoryConfig.getBatchConcurrency());
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "git-batch-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        localConcurrency = Runtime.getRuntime().availableProcessors();
+        AtomicInteger localThreadIndex = new AtomicInteger();
+        localExecutor = Executors.newFixedThreadPool(localConcurrency, runnable -> {
+            Thread thread = new Thread(runnable, "git-local-" + localThreadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.info("批量操作线程池初始化完毕，并发数：{}，本地只读操作并发数：{}，单项目超时：{}秒", concurrency, localConcurrency,
+                gitRepositoryConfig.getBatchTimeout());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+        localExecutor.shutdownNow();
+    }
+
+    @Override
+    public List<BatchResult> execute(List<GitProject> projects, ProjectTask task) {
+        return execute(projects, gitRepositoryConfig.getBatchConcurrency(), task);
+    }
+
+    @Override
+    public List<BatchResult> execute(List<GitProject> projects, int concurrency, ProjectTask task) {
+        return execute(projects, concurrency, task, executor);
+    }
+
+    @Override
+    public List<BatchResult> executeLocal(List<GitProject> projects, ProjectTask task) {
+        return execute(projects, localConcurrency, task, localExecutor);
+    }
+
+    private List<BatchResult> execute(List<GitProject> projects, int concurrency, ProjectTask task, ExecutorService executor) {
+        long timeout = TimeUnit.SECONDS.toMillis(gitRepositoryConfig.getBatchTimeout());
+        long batchStart = System.currentTimeMillis();
+        Batch batch = new Batch(projects, task, executor);
+        for (int i = 0; i < Math.min(Math.max(1, concurrency), projects.size()); i++) {
+            batch.submitNext();
+        }
+        boolean[] finished = new boolean[projects.size()];
+        int remaining = projects.size();
+        while (remaining > 0) {
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < projects.size(); i++) {
+                if (finished[i]) {
+                    continue;
+                }
+                Future<?> future = batch.futures.get(i);
+                if (future == null) {
+                    continue;
+                }
+                long start = batch.startTimes.get(i);
+                if (future.isDone()) {
+                    finished[i] = true;
+                    remaining--;
+                } else if (timeout > 0 && start > 0 && now - start > timeout) {
+                    /**
+                     * JGit的传输和检出不响应中断，取消无法停止任务，只记为超时，任务结束后才释放名额；
+                     * 网络传输由传输超时限制
+                     */
+                    logger.warn("项目处理超时，仍在后台运行：{}", projects.get(i).getRemoteUrl());
+                    complete(batch.results.get(i), BatchStatusEnum.TIMEOUT, "执行超过" + gitRepositoryConfig.getBatchTimeout() + "秒，仍在后台运行", now - start);
+                    finished[i] = true;
+                    remaining--;
+                }
+            }
+            if (remaining > 0) {
+                try {
+                    Thread.sleep(POLL_INTERVAL);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    batch.cancel();
+                    break;
+                }
+            }
+        }
+        logSummary(batch.results, System.currentTimeMillis() - batchStart);
+        return batch.results;
+    }
+
+    /**
+     * 写入执行结果，任务线程与超时判断可能同时写入，以先写入者为准
+     *
+     * @param result
+     * @param status
+     * @param message
+     * @param duration
+     * @return 已有结果时返回false
+     */
+    private boolean complete(BatchResult result, BatchStatusEnum status, String message, long duration) {
+        synchronized (result) {
+            if (result.getStatus() == null) {
+                result.setStatus(status);
+                result.setMessage(message);
+                result.setDuration(duration);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private void logSummary(List<BatchResult> results, long duration) {
+        int success = 0;
+        List<String> skipped = new ArrayList<>();
+        int failure = 0;
+        for (BatchResult result : results) {
+            synchronized (result) {
+                if (result.getStatus() == null) {
+                    result.setStatus(BatchStatusEnum.FAILURE);
+                    result.setMessage("操作被中断");
+                }
+            }
+            if (BatchStatusEnum.SUCCESS == result.getStatus()) {
+                success++;
+            } else if (BatchStatusEnum.SKIPPED == result.getStatus()) {
+                skipped.add(result.getProjectName());
+            } else {
+                failure++;
+                logger.warn("项目：{}，结果：{}，耗时：{}ms，原因：{}", result.getProjectName(), result.getStatus(), result.getDuration(), result.getMessage());
+            }
+        }
+        logger.info("批量操作完毕，成功：{}，跳过：{}，失败：{}，总耗时：{}ms", success, skipped.size(), failure, duration);
+        if (!skipped.isEmpty()) {
+            logger.info("跳过的项目：{}", skipped);
+        }
+    }
+
+    /**
+     * 一次批量操作的执行状态，一个项目结束后才提交下一个项目，同时执行的项目数不超过并发数，
+     * 排队中的项目不占用线程池，其它批量操作可同时使用线程池
+     */
+    private class Batch {
+        private final List<GitProject> projects;
+        private final ProjectTask task;
+        private final ExecutorService executor;
+        private final List<BatchResult> results;
+        /**
+         * 各项目的任务，尚未提交的项目为null
+         */
+        private final AtomicReferenceArray<Future<?>> futures;
+        /**
+         * 记录每个项目真正开始执行的时间，排队中的项目不计入超时
+         */
+        private final AtomicLongArray startTimes;
+        /**
+         * 项目是否已让出执行名额，任务真正结束时让出，每个项目只让出一次
+         */
+        private final AtomicIntegerArray released;
+        /**
+         * 下一个提交的项目位置
+         */
+        private final AtomicInteger nextIndex = new AtomicInteger();
+
+        private Batch(List<GitProject> projects, ProjectTask task, ExecutorService executor) {
+            this.projects = projects;
+            this.task = task;
+            this.executor = executor;
+            this.results = new ArrayList<>(projects.size());
+            this.futures = new AtomicReferenceArray<>(projects.size());
+            this.startTimes = new AtomicLongArray(projects.size());
+            this.released = new AtomicIntegerArray(projects.size());
+            for (GitProject gitProject : projects) {
+                BatchResult result = new BatchResult();
+                result.setProjectName(gitProject.getName());
+                results.add(result);
+            }
+        }
+
+        private void submitNext() {
+            int index = nextIndex.getAndIncrement();
+            if (index >= projects.size()) {
+                return;
+            }
+            futures.set(index, executor.submit(() -> run(index)));
+        }
+
+        private void run(int index) {
+            GitProject gitProject = projects.get(index);
+            long start = System.currentTimeMillis();
+            startTimes.set(index, start);
+            BatchStatusEnum status;
+            String message = null;
+            try {
+                status = task.execute(gitProject) ? BatchStatusEnum.SUCCESS : BatchStatusEnum.SKIPPED;
+            } catch (Exception e) {
+                logger.error("项目处理出错：" + gitProject.getRemoteUrl(), e);
+                status = BatchStatusEnum.FAILURE;
+                message = e.getMessage();
+            } finally {
+                release(index);
+            }
+            long duration = System.currentTimeMillis() - start;
+            if (!complete(results.get(index), status, message, duration)) {
+                logger.info("超时项目执行结束：{}，结果：{}，耗时：{}ms", gitProject.getRemoteUrl(), status, duration);
+            }
+        }
+
+        private void release(int index) {
+            if (released.compareAndSet(index, 0, 1)) {
+                submitNext();
+            }
+        }
+
+        /**
+         * 取消已提交的项目，不再提交排队中的项目
+         */
+        private void cancel() {
+            nextIndex.set(projects.size());
+            for (int i = 0; i < projects.size(); i++) {
+                Future<?> future = futures.get(i);
+                if (future != null) {
+                    future.cancel(true);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.geostar.geostack.git_branch_manager.service.impl;
+
+import com.geostar.geostack.git_branch_manager.common.ActivityPeriodEnum;
+import com.geostar.geostack.git_branch_manager.pojo.ContributorActivity;
+import com.geostar.geostack.git_branch_manager.pojo.GitLog;
+import com.geostar.geostack.git_branch_manager.pojo.GitProject;
+import com.geostar.geostack.git_branch_manager.service.ICommitActivityIndex;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按项目、作者、天和周预先汇总的提交数，由提交日志索引在追加、切换或重建时同步更新，
+ * 查询时只在汇总桶上求和，不遍历提交历史
+ */
+@Service("commitActivityIndex")
+public class CommitActivityIndexImpl implements ICommitActivityIndex {
+
+    private final Map<String, ProjectActivity> projectActivities = new ConcurrentHashMap<>();
+
+    @Override
+    public void add(GitProject gitProject, List<GitLog> added) {
+        ProjectActivity projectActivity = projectActivities.computeIfAbsent(gitProject.getName(), name -> new ProjectActivity());
+        synchronized (projectActivity) {
+            for (GitLog log : added) {
+                projectActivity.add(log);
+            }
+        }
+    }
+
+    @Override
+    public void remove(GitProject gitProject, List<GitLog> removed) {
+        ProjectActivity projectActivity = projectActivities.get(gitProject.getName());
+        if (projectActivity == null) {
+            return;
+        }
+        synchronized (projectActivity) {
+            for (GitLog log : removed) {
+                projectActivity.remove(log);
+            }
+        }
+    }
+
+    @Override
+    public void replace(GitProject gitProject, List<GitLog> logs) {
+        ProjectActivity projectActivity = new ProjectActivity();
+        for (GitLog log : logs) {
+            projectActivity.add(log);
+        }
+        projectActivities.put(gitProject.getName(), projectActivity);
+    }
+
+    @Override
+    public List<ContributorActivity> getActivity(List<String> projectNames, String username, ActivityPeriodEnum period, LocalDate since, LocalDate until) {
+        Map<String, ContributorActivity> contributors = new HashMap<>();
+        Long fromKey = since == null ? null : toBucket(since, period);
+        Long toKey = until == null ? null : toBucket(until, period);
+        for (String projectName : projectNames) {
+            ProjectActivity projectActivity = projectActivities.get(projectName);
+            if (projectActivity == null) {
+                continue;
+            }
+            synchronized (projectActivity) {
+                for (Map.Entry<String, TreeMap<Long, Integer>> entry : projectActivity.buckets.get(period).entrySet()) {
+                    if (username != null && !username.equals(entry.getKey())) {
+                        continue;
+                    }
+                    NavigableMap<Long, Integer> buckets = entry.getValue();
+                    if (fromKey != null) {
+                        buckets = buckets.tailMap(fromKey, true);
+                    }
+                    if (toKey != null) {
+                        buckets = buckets.headMap(toKey, true);
+                    }
+                    if (buckets.isEmpty()) {
+                        continue;
+                    }
+                    ContributorActivity contributor = contributors.computeIfAbsent(entry.getKey(), key -> {
+                        ContributorActivity activity = new ContributorActivity();
+                        activity.setUsername(key);
+                        return activity;
+                    });
+                    for (Map.Entry<Long, Integer> bucket : buckets.entrySet()) {
+                        contributor.setCommitCount(contributor.getCommitCount() + bucket.getValue());
+                        contributor.getActivity().merge(LocalDate.ofEpochDay(bucket.getKey()).toString(), bucket.getValue(), Integer::sum);
+                    }
+                }
+            }
+        }
+        List<ContributorActivity> result = new ArrayList<>(contributors.values());
+        result.sort((activity0, activity1) -> {
+            int compare = Integer.compare(activity1.getCommitCount(), activity0.getCommitCount());
+            return compare != 0 ? compare : activity0.getUsername().compareTo(activity1.getUsername());
+        });
+        return result;
+    }
+
+    /**
+     * 日期所在统计周期的第一天
+     *
+     * @param date
+     * @param period
+     * @return 以epoch天数表示
+     */
+    private static long toBucket(LocalDate date, ActivityPeriodEnum period) {
+        if (ActivityPeriodEnum.WEEK == period) {
+            date = date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        }
+        return date.toEpochDay();
+    }
+
+    /**
+     * 单个项目的汇总，统计周期到作者到周期第一天到提交数
+     */
+    private static class ProjectActivity {
+        private final Set<String> commitIds = new HashSet<>();
+        private final Map<ActivityPeriodEnum, Map<String, TreeMap<Long, Integer>>> buckets = new EnumMap<>(ActivityPeriodEnum.class);
+
+        private ProjectActivity() {
+            for (ActivityPeriodEnum period : ActivityPeriodEnum.values()) {
+                buckets.put(period, new HashMap<>());
+            }
+        }
+
+        private void add(GitLog log) {
+            if (!commitIds.add(log.getCommitId())) {
+                return;
+            }
+            LocalDate date = Instant.ofEpochMilli(log.getCommitTime().getTime()).atZone(ZoneId.systemDefault()).toLocalDate();
+            for (ActivityPeriodEnum period : ActivityPeriodEnum.values()) {
+                buckets.get(period).computeIfAbsent(log.getUsername(), key -> new TreeMap<>())
+                        .merge(toBucket(date, period), 1, Integer::sum);
+            }
+        }
+
+        private void remove(GitLog log) {
+            if (!commitIds.remove(log.getCommitId())) {
+                return;
+            }
+            LocalDate date = Instant.ofEpochMilli(log.getCommitTime().getTime()).atZone(ZoneId.systemDefault()).toLocalDate();
+            for (ActivityPeriodEnum period : ActivityPeriodEnum.values()) {
+                Map<String, TreeMap<Long, Integer>> users = buckets.get(period);
+                TreeMap<Long, Integer> userBuckets = users.get(log.getUsername());
+                if (userBuckets == null) {
+                    continue;
+                }
+                userBuckets.computeIfPresent(toBucket(date, period), (key, count) -> count > 1 ? count - 1 : null);
+                if (userBuckets.isEmpty()) {
+                    users.remove(log.getUsername());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.geostar.geostack.git_branch_manager.service.impl;
+
+import com.geostar.geostack.git_branch_manager.config.GitRepositoryConfig;
+import com.geostar.geostack.git_branch_manager.pojo.GitLog;
+import com.geostar.geostack.git_branch_manager.pojo.GitProject;
+import com.geostar.geostack.git_branch_manager.service.ICommitActivityIndex;
+import com.geostar.geostack.git_branch_manager.service.ICommitLogIndex;
+import com.geostar.geostack.git_branch_manager.service.ICommitSearchIndex;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 持久化在work-home下的提交日志索引，每个项目一个日志文件和一个位置文件，
+ * 位置文件记录最后索引的提交，HEAD前进时只追加新提交；HEAD被切换或重置时只遍历新旧位置之间分叉的提交，
+ * 在已索引的提交上加入新增的、去掉不再可达的，原位置的提交已不存在时才重建；
+ * 同时增量更新提交检索索引和贡献统计
+ */
+@Service("commitLogIndex")
+public class CommitLogIndexImpl implements ICommitLogIndex {
+    private static final Logger logger = LoggerFactory.getLogger(CommitLogIndexImpl.class);
+    /**
+     * 索引目录，相对于work-home
+     */
+    private static final String INDEX_DIR = "index" + File.separator + "commits";
+    /**
+     * 日志文件后缀
+     */
+    private static final String LOG_SUFFIX = ".log";
+    /**
+     * 位置文件后缀
+     */
+    private static final String TIP_SUFFIX = ".tip";
+    @Autowired
+    private GitRepositoryConfig gitRepositoryConfig;
+    @Autowired
+    private ICommitSearchIndex commitSearchIndex;
+    @Autowired
+    private ICommitActivityIndex commitActivityIndex;
+
+    private final Map<String, ProjectIndex> projectIndexes = new ConcurrentHashMap<>();
+
+    @Override
+    public List<GitLog> getCommitLogs(GitProject gitProject, Repository repository) throws IOException {
+        ProjectIndex projectIndex = load(gitProject);
+        synchronized (projectIndex) {
+            ObjectId head = repository.resolve(Constants.HEAD);
+            if (head != null && !head.equals(projectIndex.tip)) {
+                update(gitProject, repository, projectIndex, head);
+            } else if (head == null && !projectIndex.logs.isEmpty()) {
+                rewrite(gitProject, projectIndex, null, new ArrayList<>());
+            }
+            return projectIndex.logs;
+        }
+    }
+
+    @Override
+    public void update(GitProject gitProject, Repository repository) throws IOException {
+        ProjectIndex projectIndex = load(gitProject);
+        synchronized (projectIndex) {
+            ObjectId head = repository.resolve(Constants.HEAD);
+            if (head != null && !head.equals(projectIndex.tip)) {
+                update(gitProject, repository, projectIndex, head);
+            }
+        }
+    }
+
+    private void update(GitProject gitProject, Repository repository, ProjectIndex projectIndex, ObjectId head) throws IOException {
+        long start = System.currentTimeMillis();
+        try (RevWalk walk = new RevWalk(repository)) {
+            RevCommit headCommit = walk.parseCommit(head);
+            RevCommit tipCommit = null;
+            if (projectIndex.tip != null && repository.getObjectDatabase().has(projectIndex.tip)) {
+                tipCommit = walk.parseCommit(projectIndex.tip);
+            }
+            /**
+             * 新位置可达、原位置不可达的提交为新增的提交
+             */
+            walk.markStart(headCommit);
+            if (tipCommit != null) {
+                walk.markUninteresting(tipCommit);
+            }
+            List<GitLog> added = new ArrayList<>();
+            for (RevCommit commit : walk) {
+                added.add(toGitLog(gitProject, commit));
+            }
+            if (tipCommit == null) {
+                rewrite(gitProject, projectIndex, head, added);
+                logger.info("重建提交索引：{}，提交数：{}，耗时：{}ms", gitProject.getName(), added.size(), System.currentTimeMillis() - start);
+                return;
+            }
+            /**
+             * 原位置可达、新位置不可达的提交为移除的提交，HEAD前进时为空
+             */
+            walk.reset();
+            walk.markStart(tipCommit);
+            walk.markUninteresting(headCommit);
+            Set<String> removed = new HashSet<>();
+            for (RevCommit commit : walk) {
+                removed.add(commit.getId().getName());
+            }
+            if (removed.isEmpty()) {
+                append(gitProject, projectIndex, head, added);
+                logger.info("增量更新提交索引：{}，新增提交：{}，耗时：{}ms", gitProject.getName(), added.size(), System.currentTimeMillis() - start);
+            } else {
+                move(gitProject, projectIndex, head, added, removed);
+                logger.info("切换提交索引：{}，新增提交：{}，移除提交：{}，耗时：{}ms", gitProject.getName(), added.size(), removed.size(), System.currentTimeMillis() - start);
+            }
+        }
+    }
+
+    private GitLog toGitLog(GitProject gitProject, RevCommit commit) {
+        GitLog log = new GitLog();
+        log.setProjectName(gitProject.getName());
+        log.setMessage(commit.getShortMessage());
+        log.setUsername(commit.getAuthorIdent().getName());
+        log.setEmail(commit.getAuthorIdent().getEmailAddress());
+        log.setCommitId(commit.getId().getName());
+        log.setCommitTime(new Date(commit.getCommitTime() * 1000L));
+        return log;
+    }
+
+    /**
+     * 追加新提交到日志文件，再更新位置文件
+     */
+    private void append(GitProject gitProject, ProjectIndex projectIndex, ObjectId tip, List<GitLog> added) throws IOException {
+        Path logFile = getIndexFile(gitProject, LOG_SUFFIX);
+        Files.createDirectories(logFile.getParent());
+        try (BufferedWriter writer = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (GitLog log : added) {
+                writer.write(format(log));
+                writer.newLine();
+            }
+        }
+        writeTip(gitProject, tip);
+        List<GitLog> logs = new ArrayList<>(projectIndex.logs.size() + added.size());
+        logs.addAll(projectIndex.logs);
+        logs.addAll(added);
+        logs.sort(LOG_ORDER);
+        projectIndex.logs = Collections.unmodifiableList(logs);
+        projectIndex.tip = tip;
+        commitSearchIndex.add(gitProject, added);
+        commitActivityIndex.add(gitProject, added);
+    }
+
+    /**
+     * 在已索引的提交上去掉移除的提交、加入新增的提交，用内存中的结果重写日志文件，检索索引和贡献统计只增删变化的提交
+     */
+    private void move(GitProject gitProject, ProjectIndex projectIndex, ObjectId tip, List<GitLog> added, Set<String> removed) throws IOException {
+        List<GitLog> logs = new ArrayList<>(projectIndex.logs.size() + added.size());
+        List<GitLog> removedLogs = new ArrayList<>(removed.size());
+        for (GitLog log : projectIndex.logs) {
+            if (removed.contains(log.getCommitId())) {
+                removedLogs.add(log);
+            } else {
+                logs.add(log);
+            }
+        }
+        logs.addAll(added);
+        writeLogs(gitProject, logs);
+        writeTip(gitProject, tip);
+        logs.sort(LOG_ORDER);
+        projectIndex.logs = Collections.unmodifiableList(logs);
+        projectIndex.tip = tip;
+        commitSearchIndex.remove(gitProject, removedLogs);
+        commitSearchIndex.add(gitProject, added);
+        commitActivityIndex.remove(gitProject, removedLogs);
+        commitActivityIndex.add(gitProject, added);
+    }
+
+    /**
+     * 重写整个日志文件
+     */
+    private void rewrite(GitProject gitProject, ProjectIndex projectIndex, ObjectId tip, List<GitLog> logs) throws IOException {
+        writeLogs(gitProject, logs);
+        writeTip(gitProject, tip);
+        logs.sort(LOG_ORDER);
+        projectIndex.logs = Collections.unmodifiableList(logs);
+        projectIndex.tip = tip;
+        commitSearchIndex.replace(gitProject, logs);
+        commitActivityIndex.replace(gitProject, logs);
+    }
+
+    private void writeLogs(GitProject gitProject, List<GitLog> logs) throws IOException {
+        Path logFile = getIndexFile(gitProject, LOG_SUFFIX);
+        Files.createDirectories(logFile.getParent());
+        Path tmpFile = logFile.resolveSibling(logFile.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmpFile, StandardCharsets.UTF_8)) {
+            for (GitLog log : logs) {
+                writer.write(format(log));
+                writer.newLine();
+            }
+        }
+        Files.move(tmpFile, logFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void writeTip(GitProject gitProject, ObjectId tip) throws IOException {
+        Path tipFile = getIndexFile(gitProject, TIP_SUFFIX);
+        Path tmpFile = tipFile.resolveSibling(tipFile.getFileName() + ".tmp");
+        Files.write(tmpFile, (tip == null ? "" : tip.getName()).getBytes(StandardCharsets.UTF_8));
+        Files.move(tmpFile, tipFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * 首次使用时从磁盘加载项目索引，重复的提交只保留一条
+     */
+    private ProjectIndex load(GitProject gitProject) throws IOException {
+        ProjectIndex projectIndex = projectIndexes.computeIfAbsent(gitProject.getName(), name -> new ProjectIndex());
+        synchronized (projectIndex) {
+            if (projectIndex.loaded) {
+                return projectIndex;
+            }
+            Path tipFile = getIndexFile(gitProject, TIP_SUFFIX);
+            Path logFile = getIndexFile(gitProject, LOG_SUFFIX);
+            if (Files.exists(tipFile) && Files.exists(logFile)) {
+                String tip = new String(Files.readAllBytes(tipFile), StandardCharsets.UTF_8).trim();
+                List<GitLog> logs = new ArrayList<>();
+                Set<String> commitIds = new HashSet<>();
+                try (BufferedReader reader = Files.newBufferedReader(logFile, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        GitLog log = parse(gitProject, line);
+                        if (log != null && commitIds.add(log.getCommitId())) {
+                            logs.add(log);
+                        }
+                    }
+                }
+                logs.sort(LOG_ORDER);
+                projectIndex.logs = Collections.unmodifiableList(logs);
+                projectIndex.tip = ObjectId.isId(tip) ? ObjectId.fromString(tip) : null;
+                commitSearchIndex.replace(gitProject, logs);
+                commitActivityIndex.replace(gitProject, logs);
+            }
+            projectIndex.loaded = true;
+            return projectIndex;
+        }
+    }
+
+    private Path getIndexFile(GitProject gitProject, String suffix) {
+        return new File(gitRepositoryConfig.getWorkHome() + File.separator + INDEX_DIR + File.separator + gitProject.getName() + suffix).toPath();
+    }
+
+    /**
+     * 一条提交占一行，字段以制表符分隔：提交时间、commitid、用户名、邮箱、日志信息
+     */
+    private String format(GitLog log) {
+        return (log.getCommitTime().getTime() / 1000) + "\t" + log.getCommitId() + "\t" + escape(log.getUsername())
+                + "\t" + escape(log.getEmail()) + "\t" + escape(log.getMessage());
+    }
+
+    private GitLog parse(GitProject gitProject, String line) {
+        String[] fields = line.split("\t", -1);
+        if (fields.length != 5) {
+            return null;
+        }
+        GitLog log = new GitLog();
+        log.setProjectName(gitProject.getName());
+        log.setCommitTime(new Date(Long.parseLong(fields[0]) * 1000));
+        log.setCommitId(fields[1]);
+        log.setUsername(unescape(fields[2]));
+        log.setEmail(unescape(fields[3]));
+        log.setMessage(unescape(fields[4]));
+        return log;
+    }
+
+    private String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private String unescape(String value) {
+        StringBuilder builder = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                builder.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 单个项目在内存中的索引
+     */
+    private static class ProjectIndex {
+
+        private boolean loaded;
+
+        private ObjectId tip;
+
+        private List<GitLog> logs = Collections.emptyList();
+    }
+}
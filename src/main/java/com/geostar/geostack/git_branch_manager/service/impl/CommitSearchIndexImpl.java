@@ -0,0 +1,229 @@
+package com.geostar.geostack.git_branch_manager.service.impl;
+
+import com.geostar.geostack.git_branch_manager.pojo.GitLog;
+import com.geostar.geostack.git_branch_manager.pojo.GitProject;
+import com.geostar.geostack.git_branch_manager.service.ICommitLogIndex;
+import com.geostar.geostack.git_branch_manager.service.ICommitSearchIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 提交日志的内存倒排索引，由提交日志索引在追加、切换或重建时同步更新，检索时只读取命中检索词的倒排表，不遍历历史；
+ * 移除的提交只做标记，标记数超过一半时重建该项目的索引；
+ * 字母数字串整体作为一个词，汉字按单字和相邻两字建立索引，检索时两字以上的汉字串按相邻两字匹配
+ */
+@Service("commitSearchIndex")
+public class CommitSearchIndexImpl implements ICommitSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(CommitSearchIndexImpl.class);
+
+    private final Map<String, ProjectSearchIndex> projectIndexes = new ConcurrentHashMap<>();
+
+    @Override
+    public void add(GitProject gitProject, List<GitLog> added) {
+        ProjectSearchIndex projectIndex = projectIndexes.computeIfAbsent(gitProject.getName(), name -> new ProjectSearchIndex());
+        synchronized (projectIndex) {
+            for (GitLog log : added) {
+                projectIndex.add(log);
+            }
+        }
+    }
+
+    @Override
+    public void remove(GitProject gitProject, List<GitLog> removed) {
+        ProjectSearchIndex projectIndex = projectIndexes.get(gitProject.getName());
+        if (projectIndex == null) {
+            return;
+        }
+        synchronized (projectIndex) {
+            for (GitLog log : removed) {
+                projectIndex.remove(log);
+            }
+            /**
+             * 倒排表中仍保留已移除的文档号，超过一半时重建，回收空间
+             */
+            if (projectIndex.removed * 2 > projectIndex.docs.size()) {
+                ProjectSearchIndex compacted = new ProjectSearchIndex();
+                for (GitLog log : projectIndex.docs) {
+                    if (log != null) {
+                        compacted.add(log);
+                    }
+                }
+                projectIndexes.put(gitProject.getName(), compacted);
+            }
+        }
+    }
+
+    @Override
+    public void replace(GitProject gitProject, List<GitLog> logs) {
+        long start = System.currentTimeMillis();
+        ProjectSearchIndex projectIndex = new ProjectSearchIndex();
+        for (GitLog log : logs) {
+            projectIndex.add(log);
+        }
+        projectIndexes.put(gitProject.getName(), projectIndex);
+        logger.info("重建提交检索索引：{}，提交数：{}，检索词数：{}，耗时：{}ms", gitProject.getName(), projectIndex.docs.size(), projectIndex.postings.size(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public List<GitLog> search(String projectName, String query) {
+        ProjectSearchIndex projectIndex = projectIndexes.get(projectName);
+        Set<String> terms = tokenize(query, false);
+        if (projectIndex == null || terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<GitLog> result = new ArrayList<>();
+        synchronized (projectIndex) {
+            List<Posting> postings = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Posting posting = projectIndex.postings.get(term);
+                if (posting == null) {
+                    return Collections.emptyList();
+                }
+                postings.add(posting);
+            }
+            /**
+             * 从最短的倒排表开始求交集
+             */
+            postings.sort((posting0, posting1) -> Integer.compare(posting0.size, posting1.size));
+            int[] docIds = Arrays.copyOf(postings.get(0).docIds, postings.get(0).size);
+            int size = docIds.length;
+            for (int i = 1; i < postings.size() && size > 0; i++) {
+                size = intersect(docIds, size, postings.get(i));
+            }
+            for (int i = 0; i < size; i++) {
+                GitLog log = projectIndex.docs.get(docIds[i]);
+                if (log != null) {
+                    result.add(log);
+                }
+            }
+        }
+        result.sort(ICommitLogIndex.LOG_ORDER);
+        return result;
+    }
+
+    /**
+     * 两个升序文档号集合求交集，结果写回docIds
+     *
+     * @return 交集大小
+     */
+    private int intersect(int[] docIds, int size, Posting posting) {
+        int count = 0;
+        int j = 0;
+        for (int i = 0; i < size && j < posting.size; i++) {
+            while (j < posting.size && posting.docIds[j] < docIds[i]) {
+                j++;
+            }
+            if (j < posting.size && posting.docIds[j] == docIds[i]) {
+                docIds[count++] = docIds[i];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 拆分检索词，统一转为小写
+     *
+     * @param text
+     * @param indexing 建立索引时汉字同时输出单字和相邻两字，检索时两字以上的汉字串只输出相邻两字
+     * @return
+     */
+    private static Set<String> tokenize(String text, boolean indexing) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null) {
+            return terms;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        StringBuilder word = new StringBuilder();
+        List<String> han = new ArrayList<>();
+        int i = 0;
+        while (i <= lower.length()) {
+            int codePoint = i < lower.length() ? lower.codePointAt(i) : -1;
+            boolean isHan = codePoint >= 0 && Character.UnicodeScript.of(codePoint) == Character.UnicodeScript.HAN;
+            boolean isWord = codePoint >= 0 && !isHan && Character.isLetterOrDigit(codePoint);
+            if (!isWord && word.length() > 0) {
+                terms.add(word.toString());
+                word.setLength(0);
+            }
+            if (!isHan && !han.isEmpty()) {
+                addHanTerms(terms, han, indexing);
+                han.clear();
+            }
+            if (isWord) {
+                word.appendCodePoint(codePoint);
+            } else if (isHan) {
+                han.add(new String(Character.toChars(codePoint)));
+            }
+            i += codePoint >= 0 ? Character.charCount(codePoint) : 1;
+        }
+        return terms;
+    }
+
+    private static void addHanTerms(Set<String> terms, List<String> han, boolean indexing) {
+        if (indexing || han.size() == 1) {
+            terms.addAll(han);
+        }
+        for (int i = 0; i + 1 < han.size(); i++) {
+            terms.add(han.get(i) + han.get(i + 1));
+        }
+    }
+
+    /**
+     * 单个项目的倒排索引，文档号为提交加入索引的顺序，已移除的文档为null
+     */
+    private static class ProjectSearchIndex {
+        private final List<GitLog> docs = new ArrayList<>();
+        private final Map<String, Integer> commitIds = new HashMap<>();
+        private final Map<String, Posting> postings = new HashMap<>();
+        private int removed;
+
+        private void add(GitLog log) {
+            int docId = docs.size();
+            if (commitIds.putIfAbsent(log.getCommitId(), docId) != null) {
+                return;
+            }
+            docs.add(log);
+            Set<String> terms = tokenize(log.getMessage(), true);
+            terms.addAll(tokenize(log.getUsername(), true));
+            terms.addAll(tokenize(log.getEmail(), true));
+            for (String term : terms) {
+                postings.computeIfAbsent(term, key -> new Posting()).add(docId);
+            }
+        }
+
+        private void remove(GitLog log) {
+            Integer docId = commitIds.remove(log.getCommitId());
+            if (docId == null) {
+                return;
+            }
+            docs.set(docId, null);
+            removed++;
+        }
+    }
+
+    /**
+     * 倒排表，文档号升序
+     */
+    private static class Posting {
+        private int[] docIds = new int[4];
+        private int size;
+
+        private void add(int docId) {
+            if (size == docIds.length) {
+                docIds = Arrays.copyOf(docIds, size * 2);
+            }
+            docIds[size++] = docId;
+        }
+    }
+}
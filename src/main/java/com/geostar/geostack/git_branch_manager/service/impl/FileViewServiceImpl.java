@@ -0,0 +1,275 @@
+package com.geostar.geostack.git_branch_manager.service.impl;
+
+import com.geostar.geostack.git_branch_manager.config.GitRepositoryConfig;
+import com.geostar.geostack.git_branch_manager.pojo.FileLines;
+import com.geostar.geostack.git_branch_manager.pojo.GitProject;
+import com.geostar.geostack.git_branch_manager.service.IFileViewService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 按行分页读取工作区文件：首次访问时按需扫描换行符建立行偏移索引，之后每页只读取对应的字节范围，
+ * 扫描复用一个固定大小的缓冲区，文件内容不会整体加载到堆中；不使用内存映射，避免映射未释放时Windows下文件被锁定
+ */
+@Service("fileViewService")
+public class FileViewServiceImpl implements IFileViewService {
+    /**
+     * 判断二进制文件时检查的开头字节数，与git一致
+     */
+    private static final int BINARY_CHECK_SIZE = 8000;
+    /**
+     * 扫描缓冲区的字节数
+     */
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+    /**
+     * 单页最大行数
+     */
+    private static final int MAX_PAGE_LINES = 5000;
+    /**
+     * 单页最大字节数
+     */
+    private static final int MAX_PAGE_BYTES = 1024 * 1024;
+    /**
+     * 缓存行索引的文件数
+     */
+    private static final int MAX_CACHED_FILES = 32;
+    @Autowired
+    private GitRepositoryConfig gitRepositoryConfig;
+    /**
+     * 最近访问文件的行索引，文件大小或修改时间变化时重建
+     */
+    private final Map<String, LineIndex> lineIndexes = Collections.synchronizedMap(new LinkedHashMap<String, LineIndex>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, LineIndex> eldest) {
+            return size() > MAX_CACHED_FILES;
+        }
+    });
+
+    @Override
+    public FileLines readLines(GitProject gitProject, String fileName, int startLine, int lineCount) throws IOException {
+        Path projectDir = Paths.get(gitRepositoryConfig.getModulesHome(), gitProject.getName()).toAbsolutePath().normalize();
+        Path file = projectDir.resolve(fileName).normalize();
+        if (!file.startsWith(projectDir) || !Files.isRegularFile(file)) {
+            throw new FileNotFoundException(file.toString());
+        }
+        int start = Math.max(0, startLine);
+        int count = Math.min(Math.max(1, lineCount), MAX_PAGE_LINES);
+        FileLines fileLines = new FileLines();
+        fileLines.setStartLine(start);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            fileLines.setFileSize(size);
+            ByteBuffer scanBuffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+            if (isBinary(channel, size, scanBuffer)) {
+                fileLines.setBinary(true);
+                return fileLines;
+            }
+            LineIndex index = getLineIndex(file, size, Files.getLastModifiedTime(file).toMillis());
+            long from;
+            long to;
+            int end;
+            synchronized (index) {
+                index.scanTo(channel, start + count, scanBuffer);
+                if (index.complete) {
+                    fileLines.setTotalLines(index.size);
+                }
+                if (start >= index.size) {
+                    return fileLines;
+                }
+                end = Math.min(start + count, index.size);
+                from = index.offsets[start];
+                while (end > start + 1 && index.endOf(end - 1) - from > MAX_PAGE_BYTES) {
+                    end--;
+                }
+                to = index.endOf(end - 1);
+                if (end < index.size || !index.complete) {
+                    fileLines.setNextLine(end);
+                }
+            }
+            boolean truncated = to - from > MAX_PAGE_BYTES;
+            if (truncated) {
+                to = from + MAX_PAGE_BYTES;
+                fileLines.setTruncated(true);
+            }
+            ByteBuffer buffer = read(channel, from, ByteBuffer.allocate((int) (to - from)));
+            if (truncated) {
+                trimToCharBoundary(buffer);
+            }
+            String content = StandardCharsets.UTF_8.decode(buffer).toString();
+            for (String line : content.split("\n", -1)) {
+                fileLines.getLines().add(line.endsWith("\r") ? line.substring(0, line.length() - 1) : line);
+            }
+            /**
+             * 最后一行以换行符结尾时split会多出一个空串
+             */
+            if (content.endsWith("\n")) {
+                fileLines.getLines().remove(fileLines.getLines().size() - 1);
+            }
+        }
+        return fileLines;
+    }
+
+    /**
+     * 开头部分含有NUL字节的文件视为二进制文件
+     *
+     * @param channel
+     * @param size
+     * @param buffer  读取使用的缓冲区
+     * @return
+     * @throws IOException
+     */
+    private boolean isBinary(FileChannel channel, long size, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        buffer.limit((int) Math.min(size, Math.min(BINARY_CHECK_SIZE, buffer.capacity())));
+        read(channel, 0, buffer);
+        while (buffer.hasRemaining()) {
+            if (buffer.get() == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private LineIndex getLineIndex(Path file, long size, long lastModified) {
+        String key = file.toString();
+        synchronized (lineIndexes) {
+            LineIndex index = lineIndexes.get(key);
+            if (index == null || index.fileSize != size || index.lastModified != lastModified) {
+                index = new LineIndex(size, lastModified);
+                lineIndexes.put(key, index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * 从position开始读取文件，填满缓冲区的剩余空间或读到文件末尾为止
+     *
+     * @param channel
+     * @param position
+     * @param buffer
+     * @return 翻转后可读取的缓冲区
+     * @throws IOException
+     */
+    private static ByteBuffer read(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+        int begin = buffer.position();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position() - begin) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * 按字节数截断的内容末尾可能是不完整的UTF-8字符，回退到该字符之前
+     *
+     * @param buffer
+     */
+    private static void trimToCharBoundary(ByteBuffer buffer) {
+        int limit = buffer.limit();
+        int lead = limit - 1;
+        while (lead > 0 && limit - lead < 4 && (buffer.get(lead) & 0xC0) == 0x80) {
+            lead--;
+        }
+        if (lead < 0) {
+            return;
+        }
+        int b = buffer.get(lead) & 0xFF;
+        int charLength = b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : b >= 0xC0 ? 2 : 1;
+        if (lead + charLength > limit) {
+            buffer.limit(lead);
+        }
+    }
+
+    /**
+     * 文件的行偏移索引，offsets[i]为第i行的起始字节位置，按需向后扫描
+     */
+    private static class LineIndex {
+        private final long fileSize;
+        private final long lastModified;
+        private long[] offsets = new long[1024];
+        /**
+         * 已知的行数
+         */
+        private int size;
+        /**
+         * 已扫描到的字节位置
+         */
+        private long scanned;
+        /**
+         * 是否已扫描到文件末尾
+         */
+        private boolean complete;
+
+        private LineIndex(long fileSize, long lastModified) {
+            this.fileSize = fileSize;
+            this.lastModified = lastModified;
+            if (fileSize > 0) {
+                size = 1;
+            } else {
+                complete = true;
+            }
+        }
+
+        /**
+         * 扫描到第lineNumber行的起始位置已知或扫描到文件末尾为止，使前lineNumber行的结束位置都已确定
+         *
+         * @param channel
+         * @param lineNumber
+         * @param buffer     扫描复用的缓冲区
+         * @throws IOException
+         */
+        private void scanTo(FileChannel channel, int lineNumber, ByteBuffer buffer) throws IOException {
+            while (!complete && size <= lineNumber) {
+                buffer.clear();
+                buffer.limit((int) Math.min(fileSize - scanned, buffer.capacity()));
+                read(channel, scanned, buffer);
+                int length = buffer.remaining();
+                long position = scanned;
+                while (buffer.hasRemaining()) {
+                    position++;
+                    if (buffer.get() == '\n' && position < fileSize) {
+                        add(position);
+                    }
+                }
+                scanned = position;
+                if (scanned >= fileSize || length == 0) {
+                    complete = true;
+                }
+            }
+        }
+
+        private void add(long offset) {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            offsets[size++] = offset;
+        }
+
+        /**
+         * 第line行的结束位置（不含），调用前需保证已扫描到下一行或文件末尾
+         *
+         * @param line
+         * @return
+         */
+        private long endOf(int line) {
+            return line + 1 < size ? offsets[line + 1] : fileSize;
+        }
+    }
+}
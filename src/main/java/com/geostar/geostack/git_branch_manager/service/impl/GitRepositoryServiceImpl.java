@@ -1,163 +1,376 @@
 package com.geostar.geostack.git_branch_manager.service.impl;
 
+import com.geostar.geostack.git_branch_manager.common.ActivityPeriodEnum;
 import com.geostar.geostack.git_branch_manager.common.BranchTypeEnum;
+import com.geostar.geostack.git_branch_manager.common.MergePreviewStatusEnum;
+import com.geostar.geostack.git_branch_manager.common.CommitLogCursor;
+import com.geostar.geostack.git_branch_manager.common.CommitLogMergeIterator;
+import com.geostar.geostack.git_branch_manager.common.CursorPage;
+import com.geostar.geostack.git_branch_manager.common.InMemoryObjectInserter;
 import com.geostar.geostack.git_branch_manager.common.Page;
+import com.geostar.geostack.git_branch_manager.common.RefCoverageIndex;
+import com.geostar.geostack.git_branch_manager.common.RefSnapshot;
+import com.geostar.geostack.git_branch_manager.common.RepositoryHandle;
 import com.geostar.geostack.git_branch_manager.config.GitRepositoryConfig;
+import com.geostar.geostack.git_branch_manager.pojo.ContributorActivity;
 import com.geostar.geostack.git_branch_manager.pojo.GitLog;
 import com.geostar.geostack.git_branch_manager.pojo.GitProject;
+import com.geostar.geostack.git_branch_manager.pojo.MergePreview;
+import com.geostar.geostack.git_branch_manager.pojo.WorkingTreeStatus;
+import com.geostar.geostack.git_branch_manager.service.ICommitActivityIndex;
+import com.geostar.geostack.git_branch_manager.service.ICommitLogIndex;
+import com.geostar.geostack.git_branch_manager.service.ICommitSearchIndex;
 import com.geostar.geostack.git_branch_manager.service.IGitRepositoryService;
-import org.apache.commons.io.FileUtils;
+import com.geostar.geostack.git_branch_manager.service.IGitTransportService;
+import com.geostar.geostack.git_branch_manager.service.IOperationMetrics;
+import com.geostar.geostack.git_branch_manager.service.IReferenceMirrorService;
+import com.geostar.geostack.git_branch_manager.service.IRepositoryPool;
+import com.geostar.geostack.git_branch_manager.service.IWorkingTreeStatusCache;
+import org.eclipse.jgit.api.CloneCommand;
+import org.eclipse.jgit.api.CreateBranchCommand;
 import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.api.ListBranchCommand;
 import org.eclipse.jgit.api.MergeCommand;
 import org.eclipse.jgit.api.Status;
+import org.eclipse.jgit.api.errors.ConcurrentRefUpdateException;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.api.errors.NoHeadException;
+import org.eclipse.jgit.api.errors.RefNotFoundException;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.NullProgressMonitor;
 import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.ProgressMonitor;
 import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefUpdate;
 import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.merge.MergeStrategy;
+import org.eclipse.jgit.merge.ResolveMerger;
 import org.eclipse.jgit.revwalk.RevCommit;
-import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.transport.RefSpec;
-import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import javax.annotation.PostConstruct;
 import java.io.File;
 import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Predicate;
 
 @Service("gitRepositoryService")
 public class GitRepositoryServiceImpl implements IGitRepositoryService {
     private static final Logger logger = LoggerFactory.getLogger(GitRepositoryServiceImpl.class);
     @Autowired
     private GitRepositoryConfig gitRepositoryConfig;
+    @Autowired
+    private IRepositoryPool repositoryPool;
+    @Autowired
+    private IWorkingTreeStatusCache workingTreeStatusCache;
+    @Autowired
+    private ICommitLogIndex commitLogIndex;
+    @Autowired
+    private ICommitSearchIndex commitSearchIndex;
+    @Autowired
+    private ICommitActivityIndex commitActivityIndex;
+    @Autowired
+    private IGitTransportService gitTransportService;
+    @Autowired
+    private IOperationMetrics operationMetrics;
+    @Autowired
+    private IReferenceMirrorService referenceMirrorService;
     /**
      * 默认远程主机
      */
     private static final String ORIGIN = "origin";
+    /**
+     * 不限定项目时统计使用的项目名称
+     */
+    private static final String ALL_PROJECTS = "*";
     /**
      * 日志分隔符，用于每次对一个项目操作的结束分隔符
      */
     private static final String LOG_SEPARATOR = "---------------------------当前项目处理完毕---------------------------";
-
-    private CredentialsProvider reloadAllowHosts(){
-        return new UsernamePasswordCredentialsProvider(gitRepositoryConfig.getGitUsername(), gitRepositoryConfig.getGitPassword());
-    }
-
+    /**
+     * 各项目分支名称索引，项目刷新分支后更新
+     */
+    private final RefCoverageIndex branchIndex = new RefCoverageIndex();
+    /**
+     * 各项目标签名称索引，项目刷新标签后更新
+     */
+    private final RefCoverageIndex tagIndex = new RefCoverageIndex();
+    /**
+     * 各项目拉取远程引用的锁，后台拉取不持有项目的写锁，通过该锁与拉取代码依次更新远程跟踪引用
+     */
+    private final Map<String, Object> fetchLocks = new ConcurrentHashMap<>();
 
     @Override
     public List<GitProject> getAllGitProject() {
         return gitRepositoryConfig.getProjects();
     }
 
+    @Override
+    public List<GitProject> getGitProjects(String group) {
+        return gitRepositoryConfig.getProjects(group);
+    }
+
     @Override
     public boolean cloneOrPull(GitProject gitProject) throws IOException, GitAPIException {
+        return cloneOrPull(gitProject, NullProgressMonitor.INSTANCE);
+    }
+
+    @Override
+    public boolean cloneOrPull(GitProject gitProject, ProgressMonitor monitor) throws IOException, GitAPIException {
+        return operationMetrics.record("cloneOrPull", gitProject.getName(), () -> doCloneOrPull(gitProject, monitor));
+    }
+
+    private boolean doCloneOrPull(GitProject gitProject, ProgressMonitor monitor) throws IOException, GitAPIException {
         String modulesHome = gitRepositoryConfig.getModulesHome();
         File file = new File(modulesHome + File.separator + gitProject.getName());
+        boolean cloned = false;
         if (!file.exists()) {
-            logger.info("克隆仓库开始：{}", gitProject.getRemoteUrl());
-            Git git = Git.cloneRepository()
-                    .setURI(gitProject.getRemoteUrl())
-                    .setDirectory(file)
-                    .setCredentialsProvider(reloadAllowHosts())
-                    .call();
-            git.close();
-            logger.info("克隆仓库完毕：{}", gitProject.getRemoteUrl());
-        } else {
-            Git git = Git.open(file);
-            BranchTypeEnum branchType = getBranchType(git, gitProject.getCurrBranch());
-            if (BranchTypeEnum.LOCAL == branchType) {
-                logger.info("本地分支不做拉取：{}，分支：{}", gitProject.getRemoteUrl(), git.getRepository().getBranch());
-            } else {
-                logger.info("拉取仓库开始：{}，分支：{}", gitProject.getRemoteUrl(), git.getRepository().getBranch());
-                git.pull().setCredentialsProvider(reloadAllowHosts()).call();
-                logger.info("拉取仓库完毕：{}，分支：{}", gitProject.getRemoteUrl(), git.getRepository().getBranch());
+            Lock writeLock = repositoryPool.getLock(gitProject).writeLock();
+            writeLock.lock();
+            try {
+                /**
+                 * 取得写锁后再次检查，同时发起的另一次克隆可能已完成，此时改为拉取
+                 */
+                if (!file.exists()) {
+                    doClone(gitProject, file, monitor);
+                    cloned = true;
+                }
+            } finally {
+                writeLock.unlock();
+            }
+            if (cloned) {
+                /**
+                 * 在写锁之外使缓存失效，读取工作区状态时先取读锁再进入缓存的同步块，持有写锁时等待缓存会造成死锁
+                 */
+                repositoryPool.invalidate(gitProject);
+                workingTreeStatusCache.invalidate(gitProject);
+            }
+        }
+        if (!cloned) {
+            try (RepositoryHandle handle = repositoryPool.acquireForWrite(gitProject)) {
+                Git git = handle.getGit();
+                BranchTypeEnum branchType = RefSnapshot.of(handle.getRepository()).getBranchType(gitProject.getCurrBranch());
+                if (BranchTypeEnum.LOCAL == branchType) {
+                    logger.info("本地分支不做拉取：{}，分支：{}", gitProject.getRemoteUrl(), git.getRepository().getBranch());
+                } else {
+                    logger.info("拉取仓库开始：{}，分支：{}", gitProject.getRemoteUrl(), git.getRepository().getBranch());
+                    synchronized (getFetchLock(gitProject)) {
+                        operationMetrics.network("pull", gitProject.getName(), () -> git.pull().setCredentialsProvider(gitTransportService.getCredentialsProvider(gitProject)).setTimeout(gitTransportService.getTimeout()).setProgressMonitor(monitor).call());
+                    }
+                    logger.info("拉取仓库完毕：{}，分支：{}", gitProject.getRemoteUrl(), git.getRepository().getBranch());
+                    updateReferenceMirror(gitProject, handle.getRepository());
+                }
             }
-            git.close();
+        }
+        /**
+         * 拉取后增量更新提交日志索引
+         */
+        try (RepositoryHandle handle = repositoryPool.acquire(gitProject)) {
+            commitLogIndex.update(gitProject, handle.getRepository());
         }
         getAllRemoteBranch(gitProject);
         logger.info(LOG_SEPARATOR);
         return true;
     }
 
+    /**
+     * 克隆仓库，调用前需持有项目的写锁，克隆后由调用方在写锁之外使仓库池和工作区状态缓存失效
+     *
+     * @param gitProject
+     * @param file       工作区目录
+     * @param monitor
+     * @throws IOException
+     * @throws GitAPIException
+     */
+    private void doClone(GitProject gitProject, File file, ProgressMonitor monitor) throws IOException, GitAPIException {
+        logger.info("克隆仓库开始：{}", gitProject.getRemoteUrl());
+        CloneCommand cloneCommand = Git.cloneRepository()
+                .setURI(gitProject.getRemoteUrl())
+                .setDirectory(file)
+                .setCredentialsProvider(gitTransportService.getCredentialsProvider(gitProject))
+                .setTimeout(gitTransportService.getTimeout())
+                .setProgressMonitor(monitor);
+        /**
+         * 只克隆配置的分支，JGit会同时将远程的fetch规则限定为这些分支，之后的拉取也只拉取这些分支
+         */
+        List<String> cloneBranches = gitRepositoryConfig.getCloneBranches(gitProject);
+        if (!cloneBranches.isEmpty()) {
+            List<String> branchRefs = new ArrayList<>();
+            for (String branch : cloneBranches) {
+                branchRefs.add(Constants.R_HEADS + branch);
+            }
+            cloneCommand.setCloneAllBranches(false).setBranchesToClone(branchRefs).setBranch(branchRefs.get(0));
+            logger.info("只克隆分支：{}", cloneBranches);
+        }
+        Git git;
+        if (referenceMirrorService.isEnabled()) {
+            /**
+             * 先从远程更新本地镜像，再从镜像本地克隆，克隆后将远程地址改回项目的远程地址；
+             * 镜像只用于减少从远程传输的数据，克隆时对象完整复制到工作区，不通过objects/info/alternates引用镜像的对象：
+             * 引用后删除镜像或镜像中的对象被清理会使工作区损坏，且定时维护的gc会把引用的对象重新打包到工作区
+             */
+            File mirrorDir = referenceMirrorService.prepare(gitProject, monitor);
+            git = cloneCommand.setURI(mirrorDir.toURI().toString()).call();
+            StoredConfig config = git.getRepository().getConfig();
+            config.setString("remote", ORIGIN, "url", gitProject.getRemoteUrl());
+            config.save();
+            logger.info("从本地镜像克隆：{}", mirrorDir);
+        } else {
+            git = operationMetrics.network("clone", gitProject.getName(), cloneCommand::call);
+        }
+        git.close();
+        logger.info("克隆仓库完毕：{}", gitProject.getRemoteUrl());
+    }
+
     @Override
-    public boolean updateGitProjectInfo(GitProject gitProject) throws IOException, GitAPIException {
-        gitProject.setCurrBranch(null);
-        gitProject.setLastCommitId(null);
-        gitProject.setLastCommitMessage(null);
-        gitProject.setLastCommitUser(null);
-        gitProject.setLastCommitEmail(null);
-        gitProject.setLastCommitDate(null);
-        gitProject.getBranchList().clear();
-        gitProject.getTagList().clear();
-        gitProject.getUntrackedSet().clear();
-        gitProject.getModifiedSet().clear();
-        gitProject.getMissingSet().clear();
-        gitProject.getConflictingSet().clear();
+    public boolean fetch(GitProject gitProject) throws IOException, GitAPIException {
+        return operationMetrics.record("fetch", gitProject.getName(), () -> doFetch(gitProject));
+    }
+
+    private boolean doFetch(GitProject gitProject) throws IOException, GitAPIException {
         String modulesHome = gitRepositoryConfig.getModulesHome();
         File file = new File(modulesHome + File.separator + gitProject.getName() + File.separator + ".git");
-        if (file.exists()) {
-            Git git = Git.open(file);
-            /**
-             * 获取最后提交信息
-             */
-            try {
-                RevCommit commit = git.log().call().iterator().next();
-                gitProject.setLastCommitId(commit.getId().getName());
-                gitProject.setLastCommitMessage(commit.getShortMessage());
-                gitProject.setLastCommitUser(commit.getAuthorIdent().getName());
-                gitProject.setLastCommitEmail(commit.getAuthorIdent().getEmailAddress());
-                gitProject.setLastCommitDate(new Date(new Long(commit.getCommitTime()) * 1000));
-            } catch (NoHeadException e) {
-                logger.warn("当前仓库没有任何提交信息，仓库地址：" + gitProject.getRemoteUrl());
+        if (!file.exists()) {
+            return false;
+        }
+        /**
+         * 拉取远程分支只更新远程跟踪引用和对象，不修改工作区和索引，不持有项目的写锁，
+         * 网络较慢时读取工作区状态不必等待；同一项目的后台拉取依次进行
+         */
+        try (RepositoryHandle handle = repositoryPool.acquire(gitProject)) {
+            synchronized (getFetchLock(gitProject)) {
+                Git git = handle.getGit();
+                operationMetrics.network("fetch", gitProject.getName(), () -> git.fetch().setRemote(ORIGIN).setCredentialsProvider(gitTransportService.getCredentialsProvider(gitProject)).setTimeout(gitTransportService.getTimeout()).call());
+                updateReferenceMirror(gitProject, handle.getRepository());
             }
-            /**
-             * 获取当前多分支
-             */
-            gitProject.setCurrBranch(git.getRepository().getBranch());
+        }
+        logger.debug("拉取远程分支完毕：{}", gitProject.getRemoteUrl());
+        return true;
+    }
 
-            /**
-             * 获取所有远程分支
-             */
-            getAllRemoteBranch(gitProject);
-            /**
-             * 获取标签信息
-             */
-            List<Ref> tagRefs = git.tagList().call();
-            for (Ref tagRef : tagRefs) {
-                String tagName = tagRef.getName();
-                tagName = tagName.substring("refs/tags/".length(), tagName.length());
-                gitProject.getTagList().add(tagName);
+    private Object getFetchLock(GitProject gitProject) {
+        return fetchLocks.computeIfAbsent(gitProject.getName(), key -> new Object());
+    }
+
+    /**
+     * 拉取后用工作区更新本地镜像，镜像只用于加速克隆，更新失败不影响拉取结果
+     *
+     * @param gitProject
+     * @param repository
+     */
+    private void updateReferenceMirror(GitProject gitProject, Repository repository) {
+        try {
+            referenceMirrorService.update(gitProject, repository);
+        } catch (IOException | GitAPIException e) {
+            logger.warn("更新本地镜像失败：{}，原因：{}", gitProject.getRemoteUrl(), e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean updateGitProjectInfo(GitProject gitProject) throws IOException, GitAPIException {
+        return operationMetrics.record("updateGitProjectInfo", gitProject.getName(), () -> doUpdateGitProjectInfo(gitProject));
+    }
+
+    /**
+     * 先在局部变量中读取项目信息，再整体发布到项目对象，多个线程同时刷新同一项目时不会读到清空一半的集合
+     *
+     * @param gitProject
+     * @return
+     * @throws IOException
+     * @throws GitAPIException
+     */
+    private boolean doUpdateGitProjectInfo(GitProject gitProject) throws IOException, GitAPIException {
+        RevCommit lastCommit = null;
+        String currBranch = null;
+        List<String> branchList = Collections.emptyList();
+        List<String> tagList = Collections.emptyList();
+        WorkingTreeStatus status = new WorkingTreeStatus();
+        String modulesHome = gitRepositoryConfig.getModulesHome();
+        File file = new File(modulesHome + File.separator + gitProject.getName() + File.separator + ".git");
+        if (file.exists()) {
+            try (RepositoryHandle handle = repositoryPool.acquire(gitProject)) {
+                Git git = handle.getGit();
+                /**
+                 * 读取提交、分支和标签期间持有项目的读锁，不与检出、合并等写操作交错
+                 */
+                Lock readLock = repositoryPool.getLock(gitProject).readLock();
+                readLock.lock();
+                try {
+                    /**
+                     * 获取最后提交信息
+                     */
+                    try {
+                        lastCommit = git.log().call().iterator().next();
+                    } catch (NoHeadException e) {
+                        logger.warn("当前仓库没有任何提交信息，仓库地址：" + gitProject.getRemoteUrl());
+                    }
+                    /**
+                     * 获取当前多分支
+                     */
+                    currBranch = git.getRepository().getBranch();
+                    /**
+                     * 分支和标签从同一个引用快照获取
+                     */
+                    RefSnapshot refs = RefSnapshot.of(handle.getRepository());
+                    branchList = sortBranches(refs);
+                    tagList = new ArrayList<>(refs.getTagNames());
+                } finally {
+                    readLock.unlock();
+                }
+                /**
+                 * 获取工作区文件状态，工作区未变化时使用缓存；状态缓存自行持有读锁，并在释放读锁后尝试写回索引
+                 */
+                status = workingTreeStatusCache.getStatus(gitProject, git);
             }
-            /**
-             * 获取工作区文件状态
-             */
-            Status status = git.status().call();
-            gitProject.getUntrackedSet().addAll(status.getUntracked());
-            gitProject.getModifiedSet().addAll(status.getModified());
-            gitProject.getMissingSet().addAll(status.getMissing());
-            gitProject.getConflictingSet().addAll(status.getConflicting());
-            git.close();
         }
+        synchronized (gitProject) {
+            gitProject.setCurrBranch(currBranch);
+            gitProject.setLastCommitId(lastCommit == null ? null : lastCommit.getId().getName());
+            gitProject.setLastCommitMessage(lastCommit == null ? null : lastCommit.getShortMessage());
+            gitProject.setLastCommitUser(lastCommit == null ? null : lastCommit.getAuthorIdent().getName());
+            gitProject.setLastCommitEmail(lastCommit == null ? null : lastCommit.getAuthorIdent().getEmailAddress());
+            gitProject.setLastCommitDate(lastCommit == null ? null : new Date(new Long(lastCommit.getCommitTime()) * 1000));
+            gitProject.setBranchList(branchList);
+            gitProject.setTagList(tagList);
+            gitProject.setUntrackedSet(status.getUntrackedSet());
+            gitProject.setModifiedSet(status.getModifiedSet());
+            gitProject.setMissingSet(status.getMissingSet());
+            gitProject.setConflictingSet(status.getConflictingSet());
+        }
+        branchIndex.update(gitProject.getName(), branchList);
+        tagIndex.update(gitProject.getName(), tagList);
         return true;
     }
 
     @Override
     public boolean createBranch(GitProject gitProject, String branchName) throws IOException, GitAPIException {
+        return operationMetrics.record("createBranch", gitProject.getName(), () -> doCreateBranch(gitProject, branchName));
+    }
+
+    private boolean doCreateBranch(GitProject gitProject, String branchName) throws IOException, GitAPIException {
         String modulesHome = gitRepositoryConfig.getModulesHome();
         File file = new File(modulesHome + File.separator + gitProject.getName() + File.separator + ".git");
         if (file.exists()) {
             logger.info("创建分支开始：{}，分支：{}", gitProject.getRemoteUrl(), branchName);
-            Git git = Git.open(file);
-            git.checkout().setCreateBranch(true).setName(branchName).call();
-            git.close();
+            try (RepositoryHandle handle = repositoryPool.acquireForWrite(gitProject)) {
+                handle.getGit().checkout().setCreateBranch(true).setName(branchName).call();
+            }
             logger.info("创建分支完毕：{}，分支：{}", gitProject.getRemoteUrl(), branchName);
             logger.info(LOG_SEPARATOR);
             return true;
@@ -167,17 +380,39 @@ public class GitRepositoryServiceImpl implements IGitRepositoryService {
 
     @Override
     public boolean switchBranch(GitProject gitProject, String branchName) throws GitAPIException, IOException {
+        return operationMetrics.record("switchBranch", gitProject.getName(), () -> doSwitchBranch(gitProject, branchName));
+    }
+
+    private boolean doSwitchBranch(GitProject gitProject, String branchName) throws GitAPIException, IOException {
         String modulesHome = gitRepositoryConfig.getModulesHome();
         File file = new File(modulesHome + File.separator + gitProject.getName() + File.separator + ".git");
         if (file.exists()) {
             logger.info("切换分支开始：{}，分支：{}", gitProject.getRemoteUrl(), branchName);
-            Git git = Git.open(file);
-            BranchTypeEnum branchType = getBranchType(git, branchName);
-            if (BranchTypeEnum.REMOTE == branchType) {
-                git.fetch().setRemote(ORIGIN).setCheckFetchedObjects(true).setRefSpecs(new RefSpec("refs/heads/" + branchName + ":" + "refs/heads/" + branchName)).setCredentialsProvider(reloadAllowHosts()).call();
+            try (RepositoryHandle handle = repositoryPool.acquireForWrite(gitProject)) {
+                Git git = handle.getGit();
+                BranchTypeEnum branchType = RefSnapshot.of(handle.getRepository()).getBranchType(branchName);
+                if (BranchTypeEnum.NOT_EXIST == branchType && isBranchLimited(gitProject)) {
+                    /**
+                     * 只克隆了部分分支的项目，按需拉取目标分支后创建跟踪分支
+                     */
+                    fetchBranchOnDemand(gitProject, git, branchName);
+                    git.checkout().setCreateBranch(true).setName(branchName)
+                            .setStartPoint(ORIGIN + "/" + branchName)
+                            .setUpstreamMode(CreateBranchCommand.SetupUpstreamMode.TRACK).call();
+                } else if (BranchTypeEnum.REMOTE == branchType && isBackgroundFetchEnabled()) {
+                    /**
+                     * 远程跟踪分支由后台定时拉取保持最新，直接从本地的远程跟踪分支创建跟踪分支
+                     */
+                    git.checkout().setCreateBranch(true).setName(branchName)
+                            .setStartPoint(ORIGIN + "/" + branchName)
+                            .setUpstreamMode(CreateBranchCommand.SetupUpstreamMode.TRACK).call();
+                } else {
+                    if (BranchTypeEnum.REMOTE == branchType) {
+                        operationMetrics.network("fetch", gitProject.getName(), () -> git.fetch().setRemote(ORIGIN).setCheckFetchedObjects(true).setRefSpecs(new RefSpec("refs/heads/" + branchName + ":" + "refs/heads/" + branchName)).setCredentialsProvider(gitTransportService.getCredentialsProvider(gitProject)).setTimeout(gitTransportService.getTimeout()).call());
+                    }
+                    git.checkout().setName(branchName).call();
+                }
             }
-            git.checkout().setName(branchName).call();
-            git.close();
             logger.info("切换分支完毕：{}，分支：{}", gitProject.getRemoteUrl(), branchName);
             logger.info(LOG_SEPARATOR);
             return true;
@@ -186,97 +421,133 @@ public class GitRepositoryServiceImpl implements IGitRepositoryService {
     }
 
     /**
-     * 获取分支类型，不负责关闭Git对象
+     * 是否开启了后台定时拉取
      *
-     * @param git
-     * @param branch 分支名称
      * @return
      */
-    private BranchTypeEnum getBranchType(Git git, String branch) {
-        boolean isLocalBranch = false;
-        boolean isRemoteBranch = false;
-        try {
-            List<Ref> localRefs = git.branchList().call();
-            String localBranchPrefix = "refs/heads/";
-            for (Ref ref : localRefs) {
-                String refName = ref.getName();
-                if (refName.equals(localBranchPrefix + branch)) {
-                    isLocalBranch = true;
-                    break;
-                }
-            }
-        } catch (GitAPIException e) {
-            e.printStackTrace();
-            return BranchTypeEnum.ERROR;
-        }
-        try {
-            List<Ref> remoteRefs = git.branchList().setListMode(ListBranchCommand.ListMode.REMOTE).call();
-            String remoteBranchPrefix = "refs/remotes/origin/";
-            for (Ref ref : remoteRefs) {
-                String refName = ref.getName();
-                if (refName.equals(remoteBranchPrefix + branch)) {
-                    isRemoteBranch = true;
-                    break;
-                }
-            }
-        } catch (GitAPIException e) {
-            e.printStackTrace();
-            return BranchTypeEnum.ERROR;
-        }
-        if (isLocalBranch && isRemoteBranch) {
-            return BranchTypeEnum.LOCAL_AND_REMOTE;
-        }
-        if (isLocalBranch) {
-            return BranchTypeEnum.LOCAL;
-        }
-        if (isRemoteBranch) {
-            return BranchTypeEnum.REMOTE;
-        }
-        return BranchTypeEnum.NOT_EXIST;
+    private boolean isBackgroundFetchEnabled() {
+        return gitRepositoryConfig.getFetchInterval() > 0;
+    }
+
+    /**
+     * 项目是否只克隆了部分分支
+     *
+     * @param gitProject
+     * @return
+     */
+    private boolean isBranchLimited(GitProject gitProject) {
+        return !gitRepositoryConfig.getCloneBranches(gitProject).isEmpty();
+    }
+
+    /**
+     * 按需拉取克隆时未包含的远程分支到远程跟踪分支，不修改远程的fetch规则
+     *
+     * @param gitProject
+     * @param git
+     * @param branch
+     * @throws IOException
+     * @throws GitAPIException
+     */
+    private void fetchBranchOnDemand(GitProject gitProject, Git git, String branch) throws IOException, GitAPIException {
+        logger.info("按需拉取分支：{}", branch);
+        operationMetrics.network("fetch", gitProject.getName(), () -> git.fetch().setRemote(ORIGIN)
+                .setRefSpecs(new RefSpec("+" + Constants.R_HEADS + branch + ":" + Constants.R_REMOTES + ORIGIN + "/" + branch))
+                .setCredentialsProvider(gitTransportService.getCredentialsProvider(gitProject))
+                .setTimeout(gitTransportService.getTimeout())
+                .call());
     }
 
     @Override
     public boolean push(GitProject gitProject, String message) throws IOException, GitAPIException {
+        return push(gitProject, message, NullProgressMonitor.INSTANCE);
+    }
+
+    @Override
+    public boolean push(GitProject gitProject, String message, ProgressMonitor monitor) throws IOException, GitAPIException {
+        return operationMetrics.record("push", gitProject.getName(), () -> doPush(gitProject, message, monitor));
+    }
+
+    private boolean doPush(GitProject gitProject, String message, ProgressMonitor monitor) throws IOException, GitAPIException {
         logger.info("代码推送开始：{}，message：{}", gitProject.getRemoteUrl(), message);
-        String modulesHome = gitRepositoryConfig.getModulesHome();
-        File file = new File(modulesHome + File.separator + gitProject.getName() + File.separator + ".git");
-        Git git = Git.open(file);
-        Status status = git.status().call();
-        /**
-         * 如果是本地分支或者有修改则提交代码
-         */
-        if (status.hasUncommittedChanges()) {
-            git.add().addFilepattern(".").call();
-            git.commit().setAll(true).setMessage(message).call();
+        try (RepositoryHandle handle = repositoryPool.acquireForWrite(gitProject)) {
+            Git git = handle.getGit();
+            Status status = git.status().call();
+            /**
+             * 如果是本地分支或者有修改则提交代码
+             */
+            if (status.hasUncommittedChanges()) {
+                git.add().addFilepattern(".").call();
+                git.commit().setAll(true).setMessage(message).call();
+            }
+            /**
+             * 只推送领先于远程跟踪分支的本地分支，所有分支在一次推送中完成
+             */
+            List<RefSpec> refSpecs = getRefSpecsToPush(handle.getRepository());
+            if (refSpecs.isEmpty()) {
+                logger.info("没有需要推送的提交，跳过：{}", gitProject.getRemoteUrl());
+                logger.info(LOG_SEPARATOR);
+                return false;
+            }
+            logger.info("推送分支：{}", refSpecs);
+            operationMetrics.network("push", gitProject.getName(), () -> git.push().setRefSpecs(refSpecs).setRemote(ORIGIN).setCredentialsProvider(gitTransportService.getCredentialsProvider(gitProject)).setTimeout(gitTransportService.getTimeout()).setProgressMonitor(monitor).call());
         }
-        git.push().setPushAll().setCredentialsProvider(reloadAllowHosts()).call();
-        git.close();
         logger.info("代码推送完毕：{}", gitProject.getRemoteUrl());
         logger.info(LOG_SEPARATOR);
         return true;
     }
 
+    /**
+     * 获取需要推送的本地分支，与远程跟踪分支相同或落后于远程跟踪分支的不推送，远程不存在的分支需要推送
+     *
+     * @param repository
+     * @return
+     * @throws IOException
+     */
+    private List<RefSpec> getRefSpecsToPush(Repository repository) throws IOException {
+        List<RefSpec> refSpecs = new ArrayList<>();
+        RefSnapshot refs = RefSnapshot.of(repository);
+        try (RevWalk walk = new RevWalk(repository)) {
+            for (Map.Entry<String, Ref> entry : refs.getLocalBranches().entrySet()) {
+                ObjectId localId = entry.getValue().getObjectId();
+                Ref remoteRef = refs.getRemoteBranch(entry.getKey());
+                if (localId == null) {
+                    continue;
+                }
+                if (remoteRef != null && localId.equals(remoteRef.getObjectId())) {
+                    continue;
+                }
+                if (remoteRef != null && repository.getObjectDatabase().has(remoteRef.getObjectId())) {
+                    boolean behind = walk.isMergedInto(walk.parseCommit(localId), walk.parseCommit(remoteRef.getObjectId()));
+                    walk.reset();
+                    if (behind) {
+                        continue;
+                    }
+                }
+                String refName = entry.getValue().getName();
+                refSpecs.add(new RefSpec(refName + ":" + refName));
+            }
+        }
+        return refSpecs;
+    }
+
     @Override
     public boolean deleteBranch(GitProject gitProject) throws IOException, GitAPIException {
+        return operationMetrics.record("deleteBranch", gitProject.getName(), () -> doDeleteBranch(gitProject));
+    }
+
+    private boolean doDeleteBranch(GitProject gitProject) throws IOException, GitAPIException {
         logger.info("删除分支开始：{}，分支：{}", gitProject.getRemoteUrl(), gitProject.getCurrBranch());
-        String modulesHome = gitRepositoryConfig.getModulesHome();
-        File file = new File(modulesHome + File.separator + gitProject.getName() + File.separator + ".git");
-        Git git = Git.open(file);
-        git.checkout().setName("master").call();
-        git.branchDelete().setBranchNames(gitProject.getCurrBranch()).setForce(true).call();
-        List<Ref> refs = git.branchList().setListMode(ListBranchCommand.ListMode.REMOTE).call();
-        String remoteBranchPrefix = "refs/remotes/origin/";
-        for (Ref ref : refs) {
-            String refName = ref.getName();
-            if (refName.equals(remoteBranchPrefix + gitProject.getCurrBranch())) {
+        try (RepositoryHandle handle = repositoryPool.acquireForWrite(gitProject)) {
+            Git git = handle.getGit();
+            git.checkout().setName("master").call();
+            git.branchDelete().setBranchNames(gitProject.getCurrBranch()).setForce(true).call();
+            if (BranchTypeEnum.REMOTE == RefSnapshot.of(handle.getRepository()).getBranchType(gitProject.getCurrBranch())) {
                 RefSpec refSpec = new RefSpec()
                         .setSource(null)
                         .setDestination("refs/heads/" + gitProject.getCurrBranch());
-                git.push().setRefSpecs(refSpec).setRemote(ORIGIN).setCredentialsProvider(reloadAllowHosts()).call();
-                break;
+                operationMetrics.network("push", gitProject.getName(), () -> git.push().setRefSpecs(refSpec).setRemote(ORIGIN).setCredentialsProvider(gitTransportService.getCredentialsProvider(gitProject)).setTimeout(gitTransportService.getTimeout()).call());
             }
         }
-        git.close();
         logger.info("删除分支完毕：{}，分支：{}", gitProject.getRemoteUrl(), gitProject.getCurrBranch());
         logger.info(LOG_SEPARATOR);
         return true;
@@ -284,71 +555,74 @@ public class GitRepositoryServiceImpl implements IGitRepositoryService {
 
     @Override
     public List<String> getBranchIntersect(List<GitProject> projects) {
-        List<String> list = new ArrayList<>();
-        if (projects.size() > 0) {
-            list = projects.get(0).getBranchList();
-            for (GitProject gitProject : projects) {
-                list.retainAll(gitProject.getBranchList());
-            }
-        }
-        return list;
+        return branchIndex.intersect(getProjectNames(projects));
+    }
+
+    @Override
+    public Map<String, Integer> getBranchCoverage(List<GitProject> projects) {
+        return branchIndex.coverage(getProjectNames(projects));
     }
 
     @Override
     public boolean createTag(GitProject gitProject, String tagName, String tagLog) throws IOException, GitAPIException {
+        return operationMetrics.record("createTag", gitProject.getName(), () -> doCreateTag(gitProject, tagName, tagLog));
+    }
+
+    private boolean doCreateTag(GitProject gitProject, String tagName, String tagLog) throws IOException, GitAPIException {
         logger.info("创建标签开始：{}，标签：{}", gitProject.getRemoteUrl(), tagLog);
-        String modulesHome = gitRepositoryConfig.getModulesHome();
-        File file = new File(modulesHome + File.separator + gitProject.getName() + File.separator + ".git");
-        Git git = Git.open(file);
-        git.tag().setName(tagName).setMessage(tagLog).call();
-        git.push().setPushTags().setCredentialsProvider(reloadAllowHosts()).call();
-        git.close();
+        try (RepositoryHandle handle = repositoryPool.acquireForWrite(gitProject)) {
+            Git git = handle.getGit();
+            git.tag().setName(tagName).setMessage(tagLog).call();
+            operationMetrics.network("push", gitProject.getName(), () -> git.push().setPushTags().setCredentialsProvider(gitTransportService.getCredentialsProvider(gitProject)).setTimeout(gitTransportService.getTimeout()).call());
+        }
         logger.info("创建标签完毕：{}，标签：{}", gitProject.getRemoteUrl(), tagLog);
         logger.info(LOG_SEPARATOR);
-        return false;
+        return true;
     }
 
     @Override
-    public void createBranchByTag(GitProject gitProject, String tagName, String branchName) throws IOException, GitAPIException {
-        updateGitProjectInfo(gitProject);
-        logger.info("从{}标签检出代码到{}分支，project：{}", tagName, branchName, gitProject.getRemoteUrl());
+    public boolean createBranchByTag(GitProject gitProject, String tagName, String branchName) throws IOException, GitAPIException {
+        return operationMetrics.record("createBranchByTag", gitProject.getName(), () -> doCreateBranchByTag(gitProject, tagName, branchName));
+    }
+
+    private boolean doCreateBranchByTag(GitProject gitProject, String tagName, String branchName) throws IOException, GitAPIException {
         String modulesHome = gitRepositoryConfig.getModulesHome();
         File file = new File(modulesHome + File.separator + gitProject.getName() + File.separator + ".git");
-        Git git = Git.open(file);
-        List<Ref> tagRefs = git.tagList().call();
-        for (Ref tagRef : tagRefs) {
-            String currTagName = tagRef.getName();
-            currTagName = currTagName.substring("refs/tags/".length(), currTagName.length());
-            if (currTagName.equals(tagName)) {
-                Repository repository = git.getRepository();
-                String commitId = repository.peel(tagRef).getPeeledObjectId().getName();
-                git.checkout().setCreateBranch(true).setStartPoint(commitId).setName(branchName).call();
-                repository.close();
-                break;
+        if (!file.exists()) {
+            return false;
+        }
+        logger.info("从{}标签检出代码到{}分支，project：{}", tagName, branchName, gitProject.getRemoteUrl());
+        try (RepositoryHandle handle = repositoryPool.acquireForWrite(gitProject)) {
+            Git git = handle.getGit();
+            Repository repository = handle.getRepository();
+            Ref tagRef = RefSnapshot.of(repository).getTag(tagName);
+            if (tagRef == null) {
+                throw new RefNotFoundException("标签不存在：" + tagName);
             }
+            Ref peeled = repository.getRefDatabase().peel(tagRef);
+            ObjectId commitId = peeled.getPeeledObjectId() != null ? peeled.getPeeledObjectId() : peeled.getObjectId();
+            git.checkout().setCreateBranch(true).setStartPoint(commitId.getName()).setName(branchName).call();
         }
-        git.close();
         logger.info(LOG_SEPARATOR);
+        return true;
     }
 
     @Override
     public List<String> getTagIntersect(List<GitProject> projects) {
-        List<String> list = new ArrayList<>();
-        if (projects.size() > 0) {
-            list = projects.get(0).getTagList();
-            for (GitProject gitProject : projects) {
-                list.retainAll(gitProject.getTagList());
-            }
-        }
-        return list;
+        return tagIndex.intersect(getProjectNames(projects));
     }
 
     @Override
-    public String getFileContent(GitProject gitProject, String fileName) throws IOException {
-        String modulesHome = gitRepositoryConfig.getModulesHome();
-        File file = new File(modulesHome + File.separator + gitProject.getName() + File.separator + fileName);
-        String content = FileUtils.readFileToString(file, "UTF-8");
-        return content;
+    public Map<String, Integer> getTagCoverage(List<GitProject> projects) {
+        return tagIndex.coverage(getProjectNames(projects));
+    }
+
+    private List<String> getProjectNames(List<GitProject> projects) {
+        List<String> projectNames = new ArrayList<>(projects.size());
+        for (GitProject gitProject : projects) {
+            projectNames.add(gitProject.getName());
+        }
+        return projectNames;
     }
 
     /**
@@ -362,31 +636,30 @@ public class GitRepositoryServiceImpl implements IGitRepositoryService {
      */
     @Override
     public boolean deleteTag(GitProject gitProject, String tagName) throws IOException, GitAPIException {
+        return operationMetrics.record("deleteTag", gitProject.getName(), () -> doDeleteTag(gitProject, tagName));
+    }
+
+    private boolean doDeleteTag(GitProject gitProject, String tagName) throws IOException, GitAPIException {
         logger.info("删除标签开始：{}，标签：{}", gitProject.getRemoteUrl(), tagName);
-        String modulesHome = gitRepositoryConfig.getModulesHome();
-        File file = new File(modulesHome + File.separator + gitProject.getName() + File.separator + ".git");
-        Git git = Git.open(file);
-        List<Ref> refs = git.tagList().call();
-        git.tagDelete().setTags(tagName).call();
-        String tagPrefix = "refs/tags/";
-        for (Ref ref : refs) {
-            String refName = ref.getName();
-            if (refName.equals(tagPrefix + tagName)) {
+        try (RepositoryHandle handle = repositoryPool.acquireForWrite(gitProject)) {
+            Git git = handle.getGit();
+            Ref tagRef = RefSnapshot.of(handle.getRepository()).getTag(tagName);
+            git.tagDelete().setTags(tagName).call();
+            if (tagRef != null) {
                 RefSpec refSpec = new RefSpec()
                         .setSource(null)
-                        .setDestination(refName);
-                git.push().setRefSpecs(refSpec).setRemote(ORIGIN).setCredentialsProvider(reloadAllowHosts()).call();
-                break;
+                        .setDestination(tagRef.getName());
+                operationMetrics.network("push", gitProject.getName(), () -> git.push().setRefSpecs(refSpec).setRemote(ORIGIN).setCredentialsProvider(gitTransportService.getCredentialsProvider(gitProject)).setTimeout(gitTransportService.getTimeout()).call());
             }
         }
-        git.close();
         logger.info("删除标签完毕：{}，标签：{}", gitProject.getRemoteUrl(), tagName);
         logger.info(LOG_SEPARATOR);
         return true;
     }
 
     /**
-     * 合并分支，将被合并分支的修改并入当前工作分支，不使用快进模式
+     * 合并分支，将被合并分支的修改并入当前工作分支，不使用快进模式；
+     * 开启内存合并且工作分支不是当前检出分支时，直接在对象库中生成合并提交并更新分支引用，不切换分支
      *
      * @param gitProject
      * @param currWorkBranch 当前工作分支
@@ -398,78 +671,359 @@ public class GitRepositoryServiceImpl implements IGitRepositoryService {
      */
     @Override
     public boolean mergeBranch(GitProject gitProject, String currWorkBranch, String sourceBranch, String message) throws IOException, GitAPIException {
+        return operationMetrics.record("mergeBranch", gitProject.getName(), () -> doMergeBranch(gitProject, currWorkBranch, sourceBranch, message));
+    }
+
+    private boolean doMergeBranch(GitProject gitProject, String currWorkBranch, String sourceBranch, String message) throws IOException, GitAPIException {
         logger.info("合并分支开始：{}，工作分支：{}，被合并分支{}", gitProject.getRemoteUrl(), currWorkBranch, sourceBranch);
-        String modulesHome = gitRepositoryConfig.getModulesHome();
-        File file = new File(modulesHome + File.separator + gitProject.getName() + File.separator + ".git");
-        Git git = Git.open(file);
-        Repository repo = git.getRepository();
-        if (!repo.getBranch().equals(currWorkBranch)) {
-            git.checkout().setName(currWorkBranch).call();
-        }
-        ObjectId mergeBase = repo.resolve(sourceBranch);
-        git.merge().
-                include(mergeBase).
-                setCommit(true).
-                setFastForward(MergeCommand.FastForwardMode.NO_FF).
-                setMessage(message).
-                call();
-        git.push().setPushAll().setCredentialsProvider(reloadAllowHosts()).setCredentialsProvider(reloadAllowHosts()).call();
-        git.close();
+        try (RepositoryHandle handle = repositoryPool.acquireForWrite(gitProject)) {
+            Git git = handle.getGit();
+            Repository repo = handle.getRepository();
+            boolean inCore = gitRepositoryConfig.isMergeInCore() && !repo.getBranch().equals(currWorkBranch);
+            if (!inCore && !repo.getBranch().equals(currWorkBranch)) {
+                git.checkout().setName(currWorkBranch).call();
+            }
+            ObjectId mergeBase = repo.resolve(sourceBranch);
+            if (mergeBase == null && isBranchLimited(gitProject)) {
+                fetchBranchOnDemand(gitProject, git, sourceBranch);
+                mergeBase = repo.resolve(ORIGIN + "/" + sourceBranch);
+            }
+            if (inCore) {
+                mergeInCore(repo, currWorkBranch, sourceBranch, mergeBase, message);
+            } else {
+                git.merge().
+                        include(mergeBase).
+                        setCommit(true).
+                        setFastForward(MergeCommand.FastForwardMode.NO_FF).
+                        setMessage(message).
+                        call();
+            }
+            operationMetrics.network("push", gitProject.getName(), () -> git.push().setPushAll().setCredentialsProvider(gitTransportService.getCredentialsProvider(gitProject)).setTimeout(gitTransportService.getTimeout()).call());
+        }
         logger.info("合并分支完成：{}，工作分支：{}，被合并分支{}", gitProject.getRemoteUrl(), currWorkBranch, sourceBranch);
         logger.info(LOG_SEPARATOR);
         return true;
     }
 
+    /**
+     * 在内存中合并并直接提交到工作分支，不读写索引和工作区；被合并分支已并入时不生成提交，有冲突时不提交并抛出异常
+     *
+     * @param repo
+     * @param currWorkBranch 工作分支，不能是当前检出的分支
+     * @param sourceBranch   被合并分支名称，用于提交日志
+     * @param sourceId       被合并分支的提交
+     * @param message
+     * @throws IOException
+     * @throws GitAPIException
+     */
+    private void mergeInCore(Repository repo, String currWorkBranch, String sourceBranch, ObjectId sourceId, String message) throws IOException, GitAPIException {
+        Ref workRef = repo.exactRef(Constants.R_HEADS + currWorkBranch);
+        if (workRef == null) {
+            throw new RefNotFoundException("工作分支不存在：" + currWorkBranch);
+        }
+        if (sourceId == null) {
+            throw new RefNotFoundException("被合并分支不存在：" + sourceBranch);
+        }
+        try (RevWalk walk = new RevWalk(repo);
+             ObjectInserter inserter = repo.newObjectInserter()) {
+            RevCommit workCommit = walk.parseCommit(workRef.getObjectId());
+            RevCommit sourceCommit = walk.parseCommit(sourceId);
+            if (walk.isMergedInto(sourceCommit, workCommit)) {
+                logger.info("被合并分支已并入工作分支，不生成合并提交：{}", sourceBranch);
+                return;
+            }
+            ResolveMerger merger = (ResolveMerger) MergeStrategy.RECURSIVE.newMerger(inserter, repo.getConfig());
+            if (!merger.merge(workCommit, sourceCommit)) {
+                List<String> conflicts = new ArrayList<>(merger.getUnmergedPaths());
+                if (merger.getFailingPaths() != null) {
+                    conflicts.addAll(merger.getFailingPaths().keySet());
+                }
+                throw new IOException("合并冲突，请切换到工作分支后手动合并：" + conflicts);
+            }
+            PersonIdent ident = new PersonIdent(repo);
+            CommitBuilder commit = new CommitBuilder();
+            commit.setTreeId(merger.getResultTreeId());
+            commit.setParentIds(workCommit, sourceCommit);
+            commit.setAuthor(ident);
+            commit.setCommitter(ident);
+            commit.setMessage(message);
+            ObjectId commitId = inserter.insert(commit);
+            inserter.flush();
+            RefUpdate refUpdate = repo.updateRef(workRef.getName());
+            refUpdate.setNewObjectId(commitId);
+            refUpdate.setExpectedOldObjectId(workCommit);
+            refUpdate.setRefLogMessage("merge " + sourceBranch + ": Merge made by recursive in-core.", false);
+            RefUpdate.Result result = refUpdate.update(walk);
+            if (RefUpdate.Result.FAST_FORWARD != result) {
+                throw new ConcurrentRefUpdateException("更新工作分支失败：" + currWorkBranch, workRef, result);
+            }
+        }
+    }
+
+    @Override
+    public MergePreview previewMerge(GitProject gitProject, String currWorkBranch, String sourceBranch) throws IOException, GitAPIException {
+        return operationMetrics.record("previewMerge", gitProject.getName(), () -> doPreviewMerge(gitProject, currWorkBranch, sourceBranch));
+    }
+
+    /**
+     * 使用内存中的合并器试合并，合并产生的对象只保存在内存中，不写入对象库，不修改索引、工作区和引用
+     *
+     * @param gitProject
+     * @param currWorkBranch
+     * @param sourceBranch
+     * @return
+     * @throws IOException
+     */
+    private MergePreview doPreviewMerge(GitProject gitProject, String currWorkBranch, String sourceBranch) throws IOException {
+        MergePreview preview = new MergePreview();
+        preview.setProjectName(gitProject.getName());
+        try (RepositoryHandle handle = repositoryPool.acquire(gitProject);
+             RevWalk walk = new RevWalk(handle.getRepository());
+             ObjectInserter inserter = new InMemoryObjectInserter(handle.getRepository())) {
+            Repository repo = handle.getRepository();
+            Ref workRef = repo.exactRef(Constants.R_HEADS + currWorkBranch);
+            ObjectId sourceId = resolveBranch(repo, sourceBranch);
+            if (workRef == null || sourceId == null) {
+                preview.setStatus(MergePreviewStatusEnum.BRANCH_NOT_FOUND);
+                preview.setMessage(workRef == null ? "工作分支不存在：" + currWorkBranch : "被合并分支不存在：" + sourceBranch);
+                return preview;
+            }
+            RevCommit workCommit = walk.parseCommit(workRef.getObjectId());
+            RevCommit sourceCommit = walk.parseCommit(sourceId);
+            if (walk.isMergedInto(sourceCommit, workCommit)) {
+                preview.setStatus(MergePreviewStatusEnum.UP_TO_DATE);
+                return preview;
+            }
+            ResolveMerger merger = (ResolveMerger) MergeStrategy.RECURSIVE.newMerger(inserter, repo.getConfig());
+            if (merger.merge(false, workCommit, sourceCommit)) {
+                preview.setStatus(MergePreviewStatusEnum.MERGEABLE);
+            } else {
+                preview.setStatus(MergePreviewStatusEnum.CONFLICTING);
+                preview.getConflicts().addAll(merger.getUnmergedPaths());
+                if (merger.getFailingPaths() != null) {
+                    preview.getConflicts().addAll(merger.getFailingPaths().keySet());
+                }
+            }
+        }
+        logger.info("合并预检：{}，工作分支：{}，被合并分支：{}，结果：{}", gitProject.getRemoteUrl(), currWorkBranch, sourceBranch, preview.getStatus());
+        return preview;
+    }
+
+    /**
+     * 解析分支，本地不存在时使用默认远程的跟踪分支
+     *
+     * @param repo
+     * @param branch
+     * @return 都不存在时返回null
+     * @throws IOException
+     */
+    private ObjectId resolveBranch(Repository repo, String branch) throws IOException {
+        ObjectId objectId = repo.resolve(branch);
+        if (objectId == null) {
+            objectId = repo.resolve(ORIGIN + "/" + branch);
+        }
+        return objectId;
+    }
+
+    /**
+     * 分页获取日志，对各项目已按提交时间排好序的索引做k路归并，取满当前页即停止
+     *
+     * @param page
+     * @param username
+     * @param projectName
+     * @throws IOException
+     * @throws GitAPIException
+     */
     @Override
     public void getCommitLogs(Page<GitLog> page, String username, String projectName) throws IOException, GitAPIException {
-        List<GitLog> logs = page.getAllData();
-        List<GitProject> gitProjects = this.getAllGitProject();
-        String modulesHome = gitRepositoryConfig.getModulesHome();
-        for (GitProject gitProject : gitProjects) {
-            File file = new File(modulesHome + File.separator + gitProject.getName() + File.separator + ".git");
-            Git git = Git.open(file);
-            Iterable<RevCommit> it = git.log().call();
-            for (RevCommit commit : it) {
-                GitLog log = new GitLog();
-                log.setProjectName(gitProject.getName());
-                log.setMessage(commit.getShortMessage());
-                log.setUsername(commit.getAuthorIdent().getName());
-                log.setCommitId(commit.getId().getName());
-                log.setCommitTime(new Date(new Long(commit.getCommitTime()) * 1000));
-                if (username == null && projectName == null) {
-                    logs.add(log);
-                } else if (username != null && projectName != null) {
-                    if (log.getUsername().equals(username) && log.getProjectName().equals(projectName)) {
-                        logs.add(log);
-                    }
-                } else if (username != null) {
-                    if (log.getUsername().equals(username)) {
-                        logs.add(log);
-                    }
-                } else if (projectName != null) {
-                    if (log.getProjectName().equals(projectName)) {
-                        logs.add(log);
+        operationMetrics.record("getCommitLogs", projectName == null ? ALL_PROJECTS : projectName, () -> {
+            doGetCommitLogs(page, username, projectName);
+            return null;
+        });
+    }
+
+    private void doGetCommitLogs(Page<GitLog> page, String username, String projectName) throws IOException, GitAPIException {
+        List<Iterator<GitLog>> sources = new ArrayList<>();
+        int totalDataNum = 0;
+        for (GitProject gitProject : this.getAllGitProject()) {
+            if (projectName != null && !projectName.equals(gitProject.getName())) {
+                continue;
+            }
+            try (RepositoryHandle handle = repositoryPool.acquire(gitProject)) {
+                List<GitLog> logs = commitLogIndex.getCommitLogs(gitProject, handle.getRepository());
+                sources.add(logs.iterator());
+                if (username == null) {
+                    totalDataNum += logs.size();
+                } else {
+                    for (GitLog log : logs) {
+                        if (username.equals(log.getUsername())) {
+                            totalDataNum++;
+                        }
                     }
                 }
             }
         }
-        Collections.sort(logs, (arg0, arg1) -> {
-            long time0 = arg0.getCommitTime().getTime();
-            long time1 = arg1.getCommitTime().getTime();
-            if (time1 > time0) {
-                return 1;
-            } else if (time1 == time0) {
-                return 0;
+        Iterator<GitLog> it = new CommitLogMergeIterator(sources, ICommitLogIndex.LOG_ORDER,
+                username == null ? null : log -> username.equals(log.getUsername()));
+        fillPage(page, it, totalDataNum);
+    }
+
+    /**
+     * 检索提交日志，各项目从检索索引取出命中的提交后按提交时间归并分页
+     *
+     * @param page
+     * @param query
+     * @param projectName
+     * @throws IOException
+     * @throws GitAPIException
+     */
+    @Override
+    public void searchCommitLogs(Page<GitLog> page, String query, String projectName) throws IOException, GitAPIException {
+        operationMetrics.record("searchCommitLogs", projectName == null ? ALL_PROJECTS : projectName, () -> {
+            doSearchCommitLogs(page, query, projectName);
+            return null;
+        });
+    }
+
+    private void doSearchCommitLogs(Page<GitLog> page, String query, String projectName) throws IOException {
+        List<Iterator<GitLog>> sources = new ArrayList<>();
+        int totalDataNum = 0;
+        for (String name : refreshCommitLogIndex(projectName)) {
+            List<GitLog> logs = commitSearchIndex.search(name, query);
+            sources.add(logs.iterator());
+            totalDataNum += logs.size();
+        }
+        fillPage(page, new CommitLogMergeIterator(sources, ICommitLogIndex.LOG_ORDER, null), totalDataNum);
+    }
+
+    /**
+     * 获取贡献统计，从预先汇总的统计中求和
+     *
+     * @param projectName 为空时统计所有项目
+     * @param username    为空时统计所有作者
+     * @param period
+     * @param since
+     * @param until
+     * @return
+     * @throws IOException
+     * @throws GitAPIException
+     */
+    @Override
+    public List<ContributorActivity> getCommitActivity(String projectName, String username, ActivityPeriodEnum period, LocalDate since, LocalDate until) throws IOException, GitAPIException {
+        return operationMetrics.record("getCommitActivity", projectName == null ? ALL_PROJECTS : projectName,
+                () -> commitActivityIndex.getActivity(refreshCommitLogIndex(projectName), username, period, since, until));
+    }
+
+    /**
+     * 使各项目的提交日志索引追上HEAD，检索索引和贡献统计随之更新
+     *
+     * @param projectName 为空时处理所有项目
+     * @return 处理的项目名称
+     * @throws IOException
+     */
+    private List<String> refreshCommitLogIndex(String projectName) throws IOException {
+        List<String> projectNames = new ArrayList<>();
+        for (GitProject gitProject : this.getAllGitProject()) {
+            if (projectName != null && !projectName.equals(gitProject.getName())) {
+                continue;
+            }
+            try (RepositoryHandle handle = repositoryPool.acquire(gitProject)) {
+                commitLogIndex.getCommitLogs(gitProject, handle.getRepository());
+            }
+            projectNames.add(gitProject.getName());
+        }
+        return projectNames;
+    }
+
+    /**
+     * 游标分页获取日志，各项目在已排序的索引中二分定位到游标和时间范围的起点，再k路归并取满一页，
+     * 翻页的开销与页码无关
+     *
+     * @param cursor      上一页返回的游标，为空时从最新的提交开始
+     * @param username
+     * @param projectName
+     * @param since       开始日期，包含，为空时不限
+     * @param until       结束日期，包含，为空时不限
+     * @param pageSize
+     * @return
+     * @throws IOException
+     * @throws GitAPIException
+     */
+    @Override
+    public CursorPage<GitLog> getCommitLogsByCursor(String cursor, String username, String projectName, LocalDate since, LocalDate until, int pageSize) throws IOException, GitAPIException {
+        return operationMetrics.record("getCommitLogsByCursor", projectName == null ? ALL_PROJECTS : projectName,
+                () -> doGetCommitLogsByCursor(cursor, username, projectName, since, until, pageSize));
+    }
+
+    private CursorPage<GitLog> doGetCommitLogsByCursor(String cursor, String username, String projectName, LocalDate since, LocalDate until, int pageSize) throws IOException {
+        GitLog after = cursor == null || cursor.isEmpty() ? null : CommitLogCursor.decode(cursor).toGitLog();
+        long untilTime = until == null ? Long.MAX_VALUE : until.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long sinceTime = since == null ? Long.MIN_VALUE : since.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        List<Iterator<GitLog>> sources = new ArrayList<>();
+        for (GitProject gitProject : this.getAllGitProject()) {
+            if (projectName != null && !projectName.equals(gitProject.getName())) {
+                continue;
+            }
+            try (RepositoryHandle handle = repositoryPool.acquire(gitProject)) {
+                List<GitLog> logs = commitLogIndex.getCommitLogs(gitProject, handle.getRepository());
+                int from = firstIndex(logs, log -> log.getCommitTime().getTime() < untilTime
+                        && (after == null || ICommitLogIndex.CURSOR_ORDER.compare(log, after) > 0));
+                int to = firstIndex(logs, log -> log.getCommitTime().getTime() < sinceTime);
+                if (from < to) {
+                    sources.add(logs.subList(from, to).iterator());
+                }
+            }
+        }
+        Iterator<GitLog> it = new CommitLogMergeIterator(sources, ICommitLogIndex.CURSOR_ORDER,
+                username == null ? null : log -> username.equals(log.getUsername()));
+        CursorPage<GitLog> page = new CursorPage<>();
+        while (page.getData().size() < pageSize && it.hasNext()) {
+            page.getData().add(it.next());
+        }
+        if (it.hasNext() && !page.getData().isEmpty()) {
+            page.setNextCursor(CommitLogCursor.of(page.getData().get(page.getData().size() - 1)).encode());
+        }
+        return page;
+    }
+
+    /**
+     * 在已排序的日志中二分查找第一条满足条件的日志，条件需满足前段都不成立、后段都成立
+     *
+     * @param logs
+     * @param predicate
+     * @return 都不满足时返回日志数
+     */
+    private int firstIndex(List<GitLog> logs, Predicate<GitLog> predicate) {
+        int low = 0;
+        int high = logs.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (predicate.test(logs.get(mid))) {
+                high = mid;
             } else {
-                return -1;
+                low = mid + 1;
             }
-        });
-        int start = page.getPageIndex() * page.getPageSize();
-        int end = ((page.getPageIndex() + 1) * page.getPageSize()) - 1;
-        for (int i = start; i <= end; i++) {
-            page.getData().add(page.getAllData().get(i));
         }
-        page.setTotalDataNum(page.getAllData().size());
+        return low;
+    }
+
+    /**
+     * 跳过前面的页后取满当前页，并计算总页数
+     *
+     * @param page
+     * @param it
+     * @param totalDataNum
+     */
+    private void fillPage(Page<GitLog> page, Iterator<GitLog> it, int totalDataNum) {
+        int skip = page.getPageIndex() * page.getPageSize();
+        while (skip > 0 && it.hasNext()) {
+            it.next();
+            skip--;
+        }
+        while (page.getData().size() < page.getPageSize() && it.hasNext()) {
+            page.getData().add(it.next());
+        }
+        page.setTotalDataNum(totalDataNum);
         int totalPageNum;
         if (page.getTotalDataNum() % page.getPageSize() == 0) {
             totalPageNum = page.getTotalDataNum() / page.getPageSize();
@@ -488,50 +1042,47 @@ public class GitRepositoryServiceImpl implements IGitRepositoryService {
      */
     public void getAllRemoteBranch(GitProject gitProject) throws GitAPIException, IOException {
         String modulesHome = gitRepositoryConfig.getModulesHome();
-        /**
-         * 获取远程分支信息
-         */
-        gitProject.getBranchList().clear();
         File file = new File(modulesHome + File.separator + gitProject.getName() + File.separator + ".git");
         if (file.exists()) {
-            Git git = Git.open(file);
-            List<Ref> refs = git.branchList().setListMode(ListBranchCommand.ListMode.ALL).call();
-            for (Ref ref : refs) {
-                String branchName = ref.getName();
-                /**
-                 * 本地分支前缀
-                 */
-                String headsBranchPrefix = "refs/heads/";
-                /**
-                 * 远程分支前缀
-                 */
-                String remoteBranchPrefix = "refs/remotes/origin/";
-                if (branchName.startsWith(headsBranchPrefix)) {
-                    branchName = branchName.substring(headsBranchPrefix.length(), branchName.length());
-                } else if (branchName.startsWith(remoteBranchPrefix)) {
-                    branchName = branchName.substring(remoteBranchPrefix.length(), branchName.length());
-                }
-                if (!gitProject.getBranchList().contains(branchName)) {
-                    gitProject.getBranchList().add(branchName);
-                }
+            try (RepositoryHandle handle = repositoryPool.acquire(gitProject)) {
+                updateBranchList(gitProject, RefSnapshot.of(handle.getRepository()));
             }
-            git.close();
+        } else {
+            updateBranchList(gitProject, RefSnapshot.EMPTY);
+        }
+    }
+
+    /**
+     * 从引用快照更新项目的分支列表
+     *
+     * @param gitProject
+     * @param refs
+     */
+    private void updateBranchList(GitProject gitProject, RefSnapshot refs) {
+        List<String> branchList = sortBranches(refs);
+        synchronized (gitProject) {
+            gitProject.setBranchList(branchList);
         }
-        List<String> branchList = gitProject.getBranchList();
+        branchIndex.update(gitProject.getName(), branchList);
+    }
+
+    /**
+     * 引用快照中的分支名称，master和develop排在最前
+     *
+     * @param refs
+     * @return
+     */
+    private List<String> sortBranches(RefSnapshot refs) {
+        List<String> branchList = new ArrayList<>(refs.getBranchNames());
         List<String> newBranchList = new ArrayList<>();
-        if (branchList.contains("master")) {
+        if (branchList.remove("master")) {
             newBranchList.add("master");
-            branchList.remove(branchList.indexOf("master"));
         }
-        if (branchList.contains("develop")) {
+        if (branchList.remove("develop")) {
             newBranchList.add("develop");
-            branchList.remove(branchList.indexOf("develop"));
-        }
-        for (String branch : branchList) {
-            newBranchList.add(branch);
         }
-        gitProject.getBranchList().clear();
-        gitProject.getBranchList().addAll(newBranchList);
+        newBranchList.addAll(branchList);
+        return newBranchList;
     }
 
 }
@@ -0,0 +1,138 @@
+package com.geostar.geostack.git_branch_manager.service.impl;
+
+import com.geostar.geostack.git_branch_manager.config.GitRepositoryConfig;
+import com.geostar.geostack.git_branch_manager.pojo.GitProject;
+import com.geostar.geostack.git_branch_manager.service.IGitTransportService;
+import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.transport.HttpTransport;
+import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
+import org.eclipse.jgit.transport.http.HttpConnection;
+import org.eclipse.jgit.transport.http.JDKHttpConnectionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.net.Proxy;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 统一管理JGit的HTTP传输：按批量并发数放大JDK的keep-alive连接池，使同一主机的多个仓库复用已建立的TCP/TLS连接；
+ * 同一主机共用凭据，并对已配置账号的主机预先携带Basic认证头，省去每次请求先收到401再重试的往返
+ */
+@Service("gitTransportService")
+public class GitTransportServiceImpl implements IGitTransportService {
+    private static final Logger logger = LoggerFactory.getLogger(GitTransportServiceImpl.class);
+    @Autowired
+    private GitRepositoryConfig gitRepositoryConfig;
+
+    private final Map<String, HostCredentials> hostCredentials = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        /**
+         * JDK按目标主机缓存keep-alive连接，默认每个主机只保留5个，需在首次建立HTTP连接前设置
+         */
+        int maxConnections = Math.max(5, gitRepositoryConfig.getBatchConcurrency());
+        System.setProperty("http.keepAlive", "true");
+        if (System.getProperty("http.maxConnections") == null) {
+            System.setProperty("http.maxConnections", String.valueOf(maxConnections));
+        }
+        HttpTransport.setConnectionFactory(new PreemptiveAuthConnectionFactory());
+        logger.info("Git HTTP传输初始化完毕，每主机keep-alive连接数：{}", System.getProperty("http.maxConnections"));
+    }
+
+    @Override
+    public CredentialsProvider getCredentialsProvider(GitProject gitProject) {
+        String username = gitRepositoryConfig.getGitUsername();
+        String password = gitRepositoryConfig.getGitPassword();
+        String host = getHost(gitProject);
+        HostCredentials credentials = hostCredentials.get(host);
+        if (credentials == null || !credentials.matches(username, password)) {
+            credentials = new HostCredentials(username, password);
+            hostCredentials.put(host, credentials);
+        }
+        /**
+         * 认证失败后JGit会调用reset清空凭据提供者中的账号密码，每次返回新的实例，
+         * 一次失败不影响同一主机的其它仓库和之后的操作
+         */
+        return new UsernamePasswordCredentialsProvider(username, password);
+    }
+
+    @Override
+    public int getTimeout() {
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0, gitRepositoryConfig.getBatchTimeout()));
+    }
+
+    @Override
+    public String getHost(GitProject gitProject) {
+        try {
+            String host = URI.create(gitProject.getRemoteUrl()).getHost();
+            return host == null ? "" : host.toLowerCase();
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+
+    /**
+     * 同一主机的账号密码及预先发送的认证头，不缓存凭据提供者
+     */
+    private static class HostCredentials {
+
+        private final String username;
+
+        private final String password;
+
+        /**
+         * 预先发送的认证头，未配置账号时为null
+         */
+        private final String authorization;
+
+        private HostCredentials(String username, String password) {
+            this.username = username;
+            this.password = password;
+            if (username == null || username.isEmpty()) {
+                this.authorization = null;
+            } else {
+                String token = username + ":" + (password == null ? "" : password);
+                this.authorization = "Basic " + Base64.getEncoder().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        private boolean matches(String username, String password) {
+            return Objects.equals(this.username, username) && Objects.equals(this.password, password);
+        }
+    }
+
+    /**
+     * 基于JDK HttpURLConnection的连接工厂，对已使用过凭据的主机预先携带认证头
+     */
+    private class PreemptiveAuthConnectionFactory extends JDKHttpConnectionFactory {
+
+        @Override
+        public HttpConnection create(URL url) throws IOException {
+            return withAuthorization(super.create(url), url);
+        }
+
+        @Override
+        public HttpConnection create(URL url, Proxy proxy) throws IOException {
+            return withAuthorization(super.create(url, proxy), url);
+        }
+
+        private HttpConnection withAuthorization(HttpConnection connection, URL url) {
+            HostCredentials credentials = hostCredentials.get(url.getHost().toLowerCase());
+            if (credentials != null && credentials.authorization != null) {
+                connection.setRequestProperty("Authorization", credentials.authorization);
+            }
+            return connection;
+        }
+    }
+}
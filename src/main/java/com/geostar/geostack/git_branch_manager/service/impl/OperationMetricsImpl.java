@@ -0,0 +1,93 @@
+package com.geostar.geostack.git_branch_manager.service.impl;
+
+import com.geostar.geostack.git_branch_manager.common.GitOperation;
+import com.geostar.geostack.git_branch_manager.service.IOperationMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于Micrometer的操作统计，按操作、项目、耗时阶段和结果记录耗时直方图，
+ * 次数和失败率由计时器的次数按结果标签区分，通过Actuator的metrics端点查看
+ */
+@Service("operationMetrics")
+public class OperationMetricsImpl implements IOperationMetrics {
+    /**
+     * 服务操作耗时，标签：operation、project、phase、outcome
+     */
+    private static final String OPERATION_METRIC = "git.operation";
+    /**
+     * Git服务器传输耗时，标签：transport、project、outcome
+     */
+    private static final String TRANSPORT_METRIC = "git.transport";
+    private static final String PHASE_LOCAL = "local";
+    private static final String PHASE_NETWORK = "network";
+    private static final String OUTCOME_SUCCESS = "success";
+    private static final String OUTCOME_ERROR = "error";
+    @Autowired
+    private MeterRegistry meterRegistry;
+    /**
+     * 当前线程正在执行的服务操作已累计的网络耗时，单位纳秒
+     */
+    private final ThreadLocal<long[]> networkNanos = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public <T> T record(String operation, String projectName, GitOperation<T> gitOperation) throws IOException, GitAPIException {
+        long[] network = networkNanos.get();
+        long outerNetwork = network[0];
+        network[0] = 0;
+        String outcome = OUTCOME_ERROR;
+        long start = System.nanoTime();
+        try {
+            T result = gitOperation.call();
+            outcome = OUTCOME_SUCCESS;
+            return result;
+        } finally {
+            long total = System.nanoTime() - start;
+            long networkTime = network[0];
+            network[0] = outerNetwork + networkTime;
+            operationTimer(operation, projectName, PHASE_LOCAL, outcome).record(total - networkTime, TimeUnit.NANOSECONDS);
+            if (networkTime > 0) {
+                operationTimer(operation, projectName, PHASE_NETWORK, outcome).record(networkTime, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    @Override
+    public <T> T network(String transport, String projectName, GitOperation<T> gitOperation) throws IOException, GitAPIException {
+        String outcome = OUTCOME_ERROR;
+        long start = System.nanoTime();
+        try {
+            T result = gitOperation.call();
+            outcome = OUTCOME_SUCCESS;
+            return result;
+        } finally {
+            long duration = System.nanoTime() - start;
+            networkNanos.get()[0] += duration;
+            Timer.builder(TRANSPORT_METRIC)
+                    .description("Git服务器传输耗时")
+                    .tag("transport", transport)
+                    .tag("project", projectName)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(duration, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer operationTimer(String operation, String projectName, String phase, String outcome) {
+        return Timer.builder(OPERATION_METRIC)
+                .description("服务操作耗时")
+                .tag("operation", operation)
+                .tag("project", projectName)
+                .tag("phase", phase)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
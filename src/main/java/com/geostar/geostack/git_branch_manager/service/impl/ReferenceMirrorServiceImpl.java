@@ -0,0 +1,245 @@
+package com.geostar.geostack.git_branch_manager.service.impl;
+
+import com.geostar.geostack.git_branch_manager.config.GitRepositoryConfig;
+import com.geostar.geostack.git_branch_manager.pojo.GitProject;
+import com.geostar.geostack.git_branch_manager.service.IGitTransportService;
+import com.geostar.geostack.git_branch_manager.service.IOperationMetrics;
+import com.geostar.geostack.git_branch_manager.service.IReferenceMirrorService;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ProgressMonitor;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.transport.FetchResult;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.TagOpt;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按远程地址在work-home下维护裸镜像仓库，克隆时先从镜像本地克隆再改回远程地址，
+ * 删除工作区重新克隆时只需从远程拉取镜像缺少的对象；项目拉取后再用工作区的远程跟踪分支更新镜像
+ */
+@Service("referenceMirrorService")
+public class ReferenceMirrorServiceImpl implements IReferenceMirrorService {
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceMirrorServiceImpl.class);
+    /**
+     * 镜像目录，相对于work-home
+     */
+    private static final String MIRROR_DIR = "mirrors";
+    /**
+     * 镜像仓库后缀
+     */
+    private static final String GIT_SUFFIX = ".git";
+    @Autowired
+    private GitRepositoryConfig gitRepositoryConfig;
+    @Autowired
+    private IGitTransportService gitTransportService;
+    @Autowired
+    private IOperationMetrics operationMetrics;
+    /**
+     * 各镜像的锁，同一镜像同时只有一个更新
+     */
+    private final Map<String, Object> mirrorLocks = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean isEnabled() {
+        return gitRepositoryConfig.isReferenceMirror();
+    }
+
+    @Override
+    public File prepare(GitProject gitProject, ProgressMonitor monitor) throws IOException, GitAPIException {
+        File mirrorDir = getMirrorDir(gitProject);
+        synchronized (getLock(mirrorDir)) {
+            boolean created = !mirrorDir.exists();
+            try (Git mirror = open(mirrorDir)) {
+                logger.info("{}本地镜像开始：{}", created ? "创建" : "更新", gitProject.getRemoteUrl());
+                FetchResult result = operationMetrics.network(created ? "clone" : "fetch", gitProject.getName(), () -> mirror.fetch()
+                        .setRemote(gitProject.getRemoteUrl())
+                        .setRefSpecs(getRemoteRefSpecs(gitProject))
+                        .setTagOpt(gitRepositoryConfig.getCloneBranches(gitProject).isEmpty() ? TagOpt.NO_TAGS : TagOpt.AUTO_FOLLOW)
+                        .setRemoveDeletedRefs(true)
+                        .setCredentialsProvider(gitTransportService.getCredentialsProvider(gitProject))
+                        .setTimeout(gitTransportService.getTimeout())
+                        .setProgressMonitor(monitor)
+                        .call());
+                linkHead(mirror.getRepository(), getRemoteHead(result));
+                logger.info("{}本地镜像完毕：{}", created ? "创建" : "更新", gitProject.getRemoteUrl());
+            }
+        }
+        return mirrorDir;
+    }
+
+    @Override
+    public void update(GitProject gitProject, Repository workspace) throws IOException, GitAPIException {
+        if (!isEnabled()) {
+            return;
+        }
+        File mirrorDir = getMirrorDir(gitProject);
+        synchronized (getLock(mirrorDir)) {
+            try (Git mirror = open(mirrorDir)) {
+                mirror.fetch()
+                        .setRemote(workspace.getDirectory().toURI().toString())
+                        .setRefSpecs(getWorkspaceRefSpecs(workspace))
+                        .setTagOpt(TagOpt.NO_TAGS)
+                        .call();
+                deleteHeadBranch(mirror.getRepository());
+                linkHead(mirror.getRepository(), null);
+            }
+        }
+        logger.debug("本地镜像已从工作区更新：{}", gitProject.getRemoteUrl());
+    }
+
+    /**
+     * 从远程更新镜像的规则，配置了克隆分支时只镜像这些分支，否则镜像全部分支和标签
+     *
+     * @param gitProject
+     * @return
+     */
+    private List<RefSpec> getRemoteRefSpecs(GitProject gitProject) {
+        List<RefSpec> refSpecs = new ArrayList<>();
+        List<String> cloneBranches = gitRepositoryConfig.getCloneBranches(gitProject);
+        if (cloneBranches.isEmpty()) {
+            refSpecs.add(new RefSpec("+" + Constants.R_HEADS + "*:" + Constants.R_HEADS + "*"));
+            refSpecs.add(new RefSpec("+" + Constants.R_TAGS + "*:" + Constants.R_TAGS + "*"));
+        } else {
+            for (String branch : cloneBranches) {
+                refSpecs.add(new RefSpec("+" + Constants.R_HEADS + branch + ":" + Constants.R_HEADS + branch));
+            }
+        }
+        return refSpecs;
+    }
+
+    /**
+     * 从工作区更新镜像的规则，逐个列出远程跟踪分支，跳过refs/remotes/origin/HEAD，避免在镜像中生成refs/heads/HEAD
+     *
+     * @param workspace
+     * @return
+     * @throws IOException
+     */
+    private List<RefSpec> getWorkspaceRefSpecs(Repository workspace) throws IOException {
+        List<RefSpec> refSpecs = new ArrayList<>();
+        String prefix = Constants.R_REMOTES + Constants.DEFAULT_REMOTE_NAME + "/";
+        for (Ref ref : workspace.getRefDatabase().getRefsByPrefix(prefix)) {
+            String branch = ref.getName().substring(prefix.length());
+            if (ref.isSymbolic() || Constants.HEAD.equals(branch)) {
+                continue;
+            }
+            refSpecs.add(new RefSpec("+" + ref.getName() + ":" + Constants.R_HEADS + branch));
+        }
+        refSpecs.add(new RefSpec("+" + Constants.R_TAGS + "*:" + Constants.R_TAGS + "*"));
+        return refSpecs;
+    }
+
+    /**
+     * 删除之前按通配规则更新时误建的refs/heads/HEAD分支
+     *
+     * @param mirror
+     * @throws IOException
+     */
+    private void deleteHeadBranch(Repository mirror) throws IOException {
+        if (mirror.exactRef(Constants.R_HEADS + Constants.HEAD) == null) {
+            return;
+        }
+        RefUpdate refUpdate = mirror.updateRef(Constants.R_HEADS + Constants.HEAD);
+        refUpdate.setForceUpdate(true);
+        RefUpdate.Result result = refUpdate.delete();
+        logger.info("删除本地镜像中的refs/heads/HEAD：{}，结果：{}", mirror.getDirectory(), result);
+    }
+
+    /**
+     * 获取远程仓库HEAD指向的分支，服务器未声明时按提交匹配，优先master
+     *
+     * @param result
+     * @return 无法判断时返回null
+     */
+    private String getRemoteHead(FetchResult result) {
+        Ref head = result.getAdvertisedRef(Constants.HEAD);
+        if (head == null) {
+            return null;
+        }
+        if (head.isSymbolic()) {
+            return head.getTarget().getName();
+        }
+        Ref master = result.getAdvertisedRef(Constants.R_HEADS + Constants.MASTER);
+        if (master != null && head.getObjectId().equals(master.getObjectId())) {
+            return master.getName();
+        }
+        for (Ref ref : result.getAdvertisedRefs()) {
+            if (ref.getName().startsWith(Constants.R_HEADS) && head.getObjectId().equals(ref.getObjectId())) {
+                return ref.getName();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 使镜像的HEAD指向存在的分支，从镜像克隆时默认检出该分支
+     *
+     * @param mirror
+     * @param target 期望指向的分支，为null时只在HEAD指向的分支不存在时调整
+     * @throws IOException
+     */
+    private void linkHead(Repository mirror, String target) throws IOException {
+        Ref head = mirror.exactRef(Constants.HEAD);
+        String current = head != null && head.isSymbolic() ? head.getTarget().getName() : null;
+        if (target == null || mirror.exactRef(target) == null) {
+            if (current != null && mirror.exactRef(current) != null) {
+                return;
+            }
+            target = mirror.exactRef(Constants.R_HEADS + Constants.MASTER) != null ? Constants.R_HEADS + Constants.MASTER : null;
+            if (target == null) {
+                List<Ref> branches = mirror.getRefDatabase().getRefsByPrefix(Constants.R_HEADS);
+                if (branches.isEmpty()) {
+                    return;
+                }
+                target = branches.get(0).getName();
+            }
+        }
+        if (!target.equals(current)) {
+            mirror.updateRef(Constants.HEAD).link(target);
+        }
+    }
+
+    private Git open(File mirrorDir) throws IOException, GitAPIException {
+        if (!mirrorDir.exists()) {
+            return Git.init().setBare(true).setDirectory(mirrorDir).call();
+        }
+        return Git.wrap(new FileRepositoryBuilder().setGitDir(mirrorDir).setBare().setMustExist(true).build());
+    }
+
+    private Object getLock(File mirrorDir) {
+        return mirrorLocks.computeIfAbsent(mirrorDir.getAbsolutePath(), key -> new Object());
+    }
+
+    /**
+     * 镜像目录，由远程地址去掉协议后的主机和路径组成，同一远程地址的项目共用一个镜像
+     *
+     * @param gitProject
+     * @return
+     */
+    private File getMirrorDir(GitProject gitProject) {
+        String path = gitProject.getRemoteUrl()
+                .replaceFirst("^[A-Za-z][A-Za-z0-9+.-]*://", "")
+                .replaceFirst("^[^@/]*@", "")
+                .replace(':', '/')
+                .replaceAll("[^A-Za-z0-9._/-]", "_")
+                .replace("..", "_");
+        if (path.endsWith(GIT_SUFFIX)) {
+            path = path.substring(0, path.length() - GIT_SUFFIX.length());
+        }
+        return new File(gitRepositoryConfig.getWorkHome() + File.separator + MIRROR_DIR + File.separator + path.replace('/', File.separatorChar) + GIT_SUFFIX);
+    }
+}
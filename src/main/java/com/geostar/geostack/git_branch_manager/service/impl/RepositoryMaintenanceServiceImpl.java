@@ -0,0 +1,200 @@
+package com.geostar.geostack.git_branch_manager.service.impl;
+
+import com.geostar.geostack.git_branch_manager.common.RepositoryHandle;
+import com.geostar.geostack.git_branch_manager.config.GitRepositoryConfig;
+import com.geostar.geostack.git_branch_manager.pojo.GitProject;
+import com.geostar.geostack.git_branch_manager.pojo.MaintenanceReport;
+import com.geostar.geostack.git_branch_manager.service.IGitRepositoryService;
+import com.geostar.geostack.git_branch_manager.service.IOperationMetrics;
+import com.geostar.geostack.git_branch_manager.service.IRepositoryMaintenanceService;
+import com.geostar.geostack.git_branch_manager.service.IRepositoryPool;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.errors.RepositoryNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 后台定时维护各项目的仓库：JGit的gc将松散对象和旧pack重新打包为一个带bitmap索引的pack，
+ * 打包松散引用，并清理超过过期时间（默认两周）且不可达的松散对象；
+ * 每轮按时间预算依次维护，剩余预算不足以完成下一个项目（按其上次维护耗时估计）时停止，下一轮从停止的项目继续，最近有操作的项目跳过；
+ * gc不持有项目的锁，维护期间列表页读取状态和其它操作不受影响
+ */
+@Service("repositoryMaintenanceService")
+public class RepositoryMaintenanceServiceImpl implements IRepositoryMaintenanceService {
+    private static final Logger logger = LoggerFactory.getLogger(RepositoryMaintenanceServiceImpl.class);
+    @Autowired
+    private GitRepositoryConfig gitRepositoryConfig;
+    @Autowired
+    private IGitRepositoryService gitRepositoryService;
+    @Autowired
+    private IRepositoryPool repositoryPool;
+    @Autowired
+    private IOperationMetrics operationMetrics;
+    /**
+     * 各项目最近一次维护的结果
+     */
+    private final Map<String, MaintenanceReport> reports = new ConcurrentHashMap<>();
+    /**
+     * 是否有一轮维护正在进行
+     */
+    private final AtomicBoolean running = new AtomicBoolean();
+    /**
+     * 下一轮开始维护的项目位置
+     */
+    private int nextIndex;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        /**
+         * 未开启定时维护时也创建维护线程，手动发起的维护在该线程中执行
+         */
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "git-maintenance");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        long interval = gitRepositoryConfig.getMaintenanceInterval();
+        if (interval <= 0) {
+            logger.info("仓库定时维护未开启");
+            return;
+        }
+        scheduler.scheduleWithFixedDelay(this::maintainAll, interval, interval, TimeUnit.SECONDS);
+        logger.info("仓库维护初始化完毕，间隔：{}秒，每轮时间预算：{}秒，项目空闲：{}秒", interval,
+                gitRepositoryConfig.getMaintenanceBudget(), gitRepositoryConfig.getMaintenanceIdle());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public boolean submitMaintainAll() {
+        if (running.get()) {
+            return false;
+        }
+        scheduler.execute(this::maintainAll);
+        return true;
+    }
+
+    @Override
+    public void maintainAll() {
+        if (!running.compareAndSet(false, true)) {
+            logger.debug("上一轮仓库维护尚未完成，跳过");
+            return;
+        }
+        try {
+            List<GitProject> projects = gitRepositoryService.getAllGitProject();
+            long budget = TimeUnit.SECONDS.toMillis(Math.max(0, gitRepositoryConfig.getMaintenanceBudget()));
+            long idle = TimeUnit.SECONDS.toMillis(Math.max(0, gitRepositoryConfig.getMaintenanceIdle()));
+            long start = System.currentTimeMillis();
+            int maintained = 0;
+            boolean attempted = false;
+            for (int i = 0; i < projects.size(); i++) {
+                GitProject gitProject = projects.get(nextIndex % projects.size());
+                /**
+                 * 按项目上次维护的耗时估计本次耗时，超出剩余预算时停止，下一轮从该项目开始；
+                 * 每轮第一个维护的项目不受限制，避免耗时超过整个预算的项目永远得不到维护
+                 */
+                if (budget > 0) {
+                    long remaining = budget - (System.currentTimeMillis() - start);
+                    MaintenanceReport last = reports.get(gitProject.getName());
+                    if (remaining <= 0 || attempted && last != null && last.getDuration() > remaining) {
+                        logger.info("仓库维护剩余时间预算不足，下一轮继续：{}", gitProject.getName());
+                        break;
+                    }
+                }
+                nextIndex = (nextIndex + 1) % projects.size();
+                if (repositoryPool.getIdleTime(gitProject) < idle) {
+                    logger.debug("项目最近有操作，跳过维护：{}", gitProject.getName());
+                    continue;
+                }
+                attempted = true;
+                if (maintain(gitProject)) {
+                    maintained++;
+                }
+            }
+            logger.info("本轮仓库维护完毕，维护项目数：{}，耗时：{}ms", maintained, System.currentTimeMillis() - start);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    @Override
+    public List<MaintenanceReport> getReports() {
+        List<MaintenanceReport> result = new ArrayList<>();
+        for (GitProject gitProject : gitRepositoryService.getAllGitProject()) {
+            MaintenanceReport report = reports.get(gitProject.getName());
+            if (report != null) {
+                result.add(report);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 维护单个项目的仓库并记录结果
+     *
+     * @param gitProject
+     * @return 仓库不存在时返回false
+     */
+    private boolean maintain(GitProject gitProject) {
+        MaintenanceReport report = new MaintenanceReport();
+        report.setProjectName(gitProject.getName());
+        long start = System.currentTimeMillis();
+        /**
+         * gc不持有项目的锁：重新打包时先写入新pack再删除旧pack，读取的对象始终可用；
+         * 只清理超过过期时间的不可达松散对象，期间拉取等操作新写入的对象和pack不受影响；打包引用时使用锁文件，与引用更新互不破坏
+         */
+        try (RepositoryHandle handle = repositoryPool.acquire(gitProject)) {
+            Git git = handle.getGit();
+            Properties before = git.gc().getStatistics();
+            Properties after = operationMetrics.record("gc", gitProject.getName(), () -> git.gc().call());
+            report.setLooseObjectsBefore(getStatistic(before, "numberOfLooseObjects"));
+            report.setLooseObjectsAfter(getStatistic(after, "numberOfLooseObjects"));
+            report.setPackFilesBefore(getStatistic(before, "numberOfPackFiles"));
+            report.setPackFilesAfter(getStatistic(after, "numberOfPackFiles"));
+            report.setPackSize(getStatistic(after, "sizeOfPackedObjects"));
+            report.setLooseRefs(getStatistic(after, "numberOfLooseRefs"));
+            report.setPackedRefs(getStatistic(after, "numberOfPackedRefs"));
+        } catch (RepositoryNotFoundException e) {
+            return false;
+        } catch (Exception e) {
+            report.setMessage(e.getMessage());
+            logger.warn("仓库维护出错：{}，原因：{}", gitProject.getName(), e.getMessage());
+        }
+        report.setDuration(System.currentTimeMillis() - start);
+        report.setMaintainTime(new Date());
+        reports.put(gitProject.getName(), report);
+        logger.info("仓库维护完毕：{}，松散对象：{} -> {}，pack文件：{} -> {}，pack大小：{}字节，耗时：{}ms", gitProject.getName(),
+                report.getLooseObjectsBefore(), report.getLooseObjectsAfter(), report.getPackFilesBefore(),
+                report.getPackFilesAfter(), report.getPackSize(), report.getDuration());
+        return true;
+    }
+
+    /**
+     * gc统计值以数值对象存放在Properties中，不能通过getProperty读取
+     */
+    private long getStatistic(Properties statistics, String key) {
+        Object value = statistics.get(key);
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+}
@@ -0,0 +1,223 @@
+package com.geostar.geostack.git_branch_manager.service.impl;
+
+import com.geostar.geostack.git_branch_manager.common.RepositoryHandle;
+import com.geostar.geostack.git_branch_manager.config.GitRepositoryConfig;
+import com.geostar.geostack.git_branch_manager.pojo.GitProject;
+import com.geostar.geostack.git_branch_manager.service.IRepositoryPool;
+import org.eclipse.jgit.errors.RepositoryNotFoundException;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 按项目名称缓存的仓库池，通过引用计数管理借出的仓库，空闲超时后关闭仓库，
+ * 使同一仓库的pack索引和引用缓存在多次请求之间复用；
+ * 同一项目的所有操作共用一个Repository对象，修改仓库或工作区的操作通过项目的写锁依次进行
+ */
+@Service("repositoryPool")
+public class RepositoryPoolImpl implements IRepositoryPool {
+    private static final Logger logger = LoggerFactory.getLogger(RepositoryPoolImpl.class);
+    /**
+     * 空闲仓库检查的最大间隔，单位秒
+     */
+    private static final long MAX_EVICT_INTERVAL = 60;
+    @Autowired
+    private GitRepositoryConfig gitRepositoryConfig;
+
+    private final Map<String, PooledRepository> repositories = new HashMap<>();
+    /**
+     * 各项目的读写锁，与仓库对象的生命周期无关，仓库关闭或重新打开后仍使用同一把锁
+     */
+    private final Map<String, ReentrantReadWriteLock> locks = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService evictor;
+
+    @PostConstruct
+    public void init() {
+        long interval = Math.max(1, Math.min(MAX_EVICT_INTERVAL, gitRepositoryConfig.getRepositoryIdleTimeout()));
+        evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "git-repository-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(this::evictIdle, interval, interval, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void destroy() {
+        evictor.shutdownNow();
+        for (PooledRepository pooled : repositories.values()) {
+            pooled.repository.close();
+        }
+        repositories.clear();
+    }
+
+    @Override
+    public RepositoryHandle acquire(GitProject gitProject) throws IOException {
+        return borrow(gitProject, null);
+    }
+
+    @Override
+    public RepositoryHandle acquireForWrite(GitProject gitProject) throws IOException {
+        Lock writeLock = getLock(gitProject).writeLock();
+        writeLock.lock();
+        return borrowLocked(gitProject, writeLock);
+    }
+
+    @Override
+    public RepositoryHandle tryAcquireForWrite(GitProject gitProject) throws IOException {
+        Lock writeLock = getLock(gitProject).writeLock();
+        if (!writeLock.tryLock()) {
+            return null;
+        }
+        return borrowLocked(gitProject, writeLock);
+    }
+
+    @Override
+    public ReadWriteLock getLock(GitProject gitProject) {
+        return locks.computeIfAbsent(gitProject.getName(), name -> new ReentrantReadWriteLock());
+    }
+
+    /**
+     * 已持有锁时借出仓库，借出失败时释放锁
+     *
+     * @param gitProject
+     * @param lock
+     * @return
+     * @throws IOException
+     */
+    private RepositoryHandle borrowLocked(GitProject gitProject, Lock lock) throws IOException {
+        try {
+            return borrow(gitProject, lock);
+        } catch (IOException | RuntimeException e) {
+            lock.unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * 借出仓库，加锁在池的同步块之外进行，等待锁时不影响其它项目借出仓库
+     *
+     * @param gitProject
+     * @param lock       关闭句柄时一并释放的锁，可为null
+     * @return
+     * @throws IOException
+     */
+    private synchronized RepositoryHandle borrow(GitProject gitProject, Lock lock) throws IOException {
+        File gitDir = new File(gitRepositoryConfig.getModulesHome() + File.separator + gitProject.getName() + File.separator + ".git");
+        PooledRepository pooled = repositories.get(gitProject.getName());
+        if (pooled != null && (!pooled.gitDir.equals(gitDir) || !gitDir.exists())) {
+            remove(gitProject.getName());
+            pooled = null;
+        }
+        if (pooled == null) {
+            if (!gitDir.exists()) {
+                throw new RepositoryNotFoundException(gitDir);
+            }
+            Repository repository = new FileRepositoryBuilder().setGitDir(gitDir).setMustExist(true).build();
+            pooled = new PooledRepository(gitDir, repository);
+            repositories.put(gitProject.getName(), pooled);
+            logger.debug("打开仓库：{}", gitDir);
+        }
+        pooled.refCount++;
+        pooled.lastAccess = System.currentTimeMillis();
+        PooledRepository borrowed = pooled;
+        return new RepositoryHandle(pooled.repository, () -> {
+            release(borrowed);
+            if (lock != null) {
+                lock.unlock();
+            }
+        });
+    }
+
+    @Override
+    public synchronized void invalidate(GitProject gitProject) {
+        remove(gitProject.getName());
+    }
+
+    @Override
+    public synchronized long getIdleTime(GitProject gitProject) {
+        PooledRepository pooled = repositories.get(gitProject.getName());
+        if (pooled == null) {
+            return Long.MAX_VALUE;
+        }
+        return pooled.refCount > 0 ? 0 : System.currentTimeMillis() - pooled.lastAccess;
+    }
+
+    private synchronized void release(PooledRepository pooled) {
+        pooled.refCount--;
+        pooled.lastAccess = System.currentTimeMillis();
+        if (pooled.invalid && pooled.refCount == 0) {
+            pooled.repository.close();
+        }
+    }
+
+    /**
+     * 从池中移除仓库，无人使用时立即关闭，否则等待最后一个句柄归还
+     *
+     * @param projectName
+     */
+    private void remove(String projectName) {
+        PooledRepository pooled = repositories.remove(projectName);
+        if (pooled != null) {
+            pooled.invalid = true;
+            if (pooled.refCount == 0) {
+                pooled.repository.close();
+            }
+        }
+    }
+
+    private synchronized void evictIdle() {
+        long idleTimeout = TimeUnit.SECONDS.toMillis(gitRepositoryConfig.getRepositoryIdleTimeout());
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<String, PooledRepository>> it = repositories.entrySet().iterator();
+        while (it.hasNext()) {
+            PooledRepository pooled = it.next().getValue();
+            if (pooled.refCount == 0 && now - pooled.lastAccess > idleTimeout) {
+                it.remove();
+                pooled.invalid = true;
+                pooled.repository.close();
+                logger.debug("关闭空闲仓库：{}", pooled.gitDir);
+            }
+        }
+    }
+
+    /**
+     * 池中的仓库及其引用计数
+     */
+    private static class PooledRepository {
+
+        private final File gitDir;
+
+        private final Repository repository;
+
+        private int refCount;
+
+        private long lastAccess;
+
+        private boolean invalid;
+
+        private PooledRepository(File gitDir, Repository repository) {
+            this.gitDir = gitDir;
+            this.repository = repository;
+        }
+    }
+}
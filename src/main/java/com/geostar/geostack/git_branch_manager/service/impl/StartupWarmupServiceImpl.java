@@ -0,0 +1,106 @@
+package com.geostar.geostack.git_branch_manager.service.impl;
+
+import com.geostar.geostack.git_branch_manager.common.BatchStatusEnum;
+import com.geostar.geostack.git_branch_manager.common.RepositoryHandle;
+import com.geostar.geostack.git_branch_manager.config.GitRepositoryConfig;
+import com.geostar.geostack.git_branch_manager.pojo.BatchResult;
+import com.geostar.geostack.git_branch_manager.pojo.GitProject;
+import com.geostar.geostack.git_branch_manager.service.IBatchTaskService;
+import com.geostar.geostack.git_branch_manager.service.ICommitLogIndex;
+import com.geostar.geostack.git_branch_manager.service.IGitRepositoryService;
+import com.geostar.geostack.git_branch_manager.service.IRepositoryPool;
+import com.geostar.geostack.git_branch_manager.service.IStartupWarmupService;
+import org.eclipse.jgit.errors.RepositoryNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 程序启动后在后台并发预热所有项目：打开仓库、计算工作区状态和分支标签信息、加载提交日志索引，
+ * 完成前健康检查的readiness分组为OUT_OF_SERVICE，首个页面请求等待预热完成后直接使用已预热的缓存
+ */
+@Service("startupWarmupService")
+public class StartupWarmupServiceImpl implements IStartupWarmupService {
+    private static final Logger logger = LoggerFactory.getLogger(StartupWarmupServiceImpl.class);
+    @Autowired
+    private GitRepositoryConfig gitRepositoryConfig;
+    @Autowired
+    private IGitRepositoryService gitRepositoryService;
+    @Autowired
+    private IBatchTaskService batchTaskService;
+    @Autowired
+    private IRepositoryPool repositoryPool;
+    @Autowired
+    private ICommitLogIndex commitLogIndex;
+
+    private final CountDownLatch readyLatch = new CountDownLatch(1);
+
+    private final AtomicInteger completedCount = new AtomicInteger();
+
+    private volatile int totalCount;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!gitRepositoryConfig.isStartupWarmup()) {
+            logger.info("启动预热未开启");
+            readyLatch.countDown();
+            return;
+        }
+        List<GitProject> projects = gitRepositoryService.getAllGitProject();
+        totalCount = projects.size();
+        Thread thread = new Thread(() -> warmup(projects), "git-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public boolean isReady() {
+        return readyLatch.getCount() == 0;
+    }
+
+    @Override
+    public int getCompletedCount() {
+        return completedCount.get();
+    }
+
+    @Override
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    @Override
+    public boolean awaitReady(long timeout, TimeUnit unit) throws InterruptedException {
+        return readyLatch.await(timeout, unit);
+    }
+
+    private void warmup(List<GitProject> projects) {
+        long start = System.currentTimeMillis();
+        try {
+            List<BatchResult> results = batchTaskService.executeLocal(projects, gitProject -> {
+                try {
+                    gitRepositoryService.updateGitProjectInfo(gitProject);
+                    try (RepositoryHandle handle = repositoryPool.acquire(gitProject)) {
+                        commitLogIndex.getCommitLogs(gitProject, handle.getRepository());
+                    } catch (RepositoryNotFoundException e) {
+                        return false;
+                    }
+                    return true;
+                } finally {
+                    completedCount.incrementAndGet();
+                }
+            });
+            long failed = results.stream().filter(result -> result.getStatus() == BatchStatusEnum.FAILURE).count();
+            logger.info("启动预热完毕，项目数：{}，失败：{}，耗时：{}ms", projects.size(), failed, System.currentTimeMillis() - start);
+        } finally {
+            readyLatch.countDown();
+        }
+    }
+}
@@ -0,0 +1,474 @@
+package com.geostar.geostack.git_branch_manager.service.impl;
+
+import com.geostar.geostack.git_branch_manager.common.RepositoryHandle;
+import com.geostar.geostack.git_branch_manager.common.SkipDirsFileTreeIterator;
+import com.geostar.geostack.git_branch_manager.config.GitRepositoryConfig;
+import com.geostar.geostack.git_branch_manager.pojo.GitProject;
+import com.geostar.geostack.git_branch_manager.pojo.WorkingTreeStatus;
+import com.geostar.geostack.git_branch_manager.service.IRepositoryPool;
+import com.geostar.geostack.git_branch_manager.service.IWorkingTreeStatusCache;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.Status;
+import org.eclipse.jgit.api.StatusCommand;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.dircache.DirCacheIterator;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.WorkingTreeIterator;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * 基于WatchService的工作区状态缓存，监听工作区目录变化，
+ * 索引文件或HEAD变化时完整扫描，否则只对发生变化的路径重新计算状态；
+ * 配置的跳过目录不监听、不在状态计算中遍历，完整扫描时记下内容未变但时间戳或大小变化的文件，扫描后只将这些文件的时间戳和大小写回索引，
+ * 下次扫描可直接比较时间戳，不必重新计算文件内容的哈希；
+ * 所有项目监听的目录总数超过上限时，超出的项目不再监听，每次完整扫描
+ */
+@Service("workingTreeStatusCache")
+public class WorkingTreeStatusCacheImpl implements IWorkingTreeStatusCache {
+    private static final Logger logger = LoggerFactory.getLogger(WorkingTreeStatusCacheImpl.class);
+    /**
+     * 单次增量扫描允许的最大变化路径数，超过后直接完整扫描
+     */
+    private static final int MAX_CHANGED_PATHS = 200;
+
+    @Autowired
+    private GitRepositoryConfig gitRepositoryConfig;
+    @Autowired
+    private IRepositoryPool repositoryPool;
+
+    private final Map<String, ProjectStatus> projectStatuses = new ConcurrentHashMap<>();
+
+    /**
+     * 所有项目当前监听的目录数
+     */
+    private final AtomicInteger watchCount = new AtomicInteger();
+
+    @PreDestroy
+    public void destroy() {
+        for (ProjectStatus projectStatus : projectStatuses.values()) {
+            synchronized (projectStatus) {
+                projectStatus.closeWatcher();
+            }
+        }
+        projectStatuses.clear();
+    }
+
+    @Override
+    public WorkingTreeStatus getStatus(GitProject gitProject, Git git) throws GitAPIException {
+        ProjectStatus projectStatus = projectStatuses.computeIfAbsent(gitProject.getName(), name -> new ProjectStatus());
+        Repository repository = git.getRepository();
+        File workTree = repository.getWorkTree();
+        File indexFile = repository.getIndexFile();
+        File headFile = new File(repository.getDirectory(), Constants.HEAD);
+        boolean fullScan;
+        Set<String> skipDirs;
+        Set<String> refreshPaths = new HashSet<>();
+        WorkingTreeStatus scanned;
+        WorkingTreeStatus result;
+        /**
+         * 扫描期间持有项目的读锁，不与检出、合并等写操作交错，避免得到中间状态；
+         * 先取读锁再进入projectStatus的同步块，同步块内不再等待项目的锁，避免与持有写锁的克隆等操作互相等待
+         */
+        Lock readLock = repositoryPool.getLock(gitProject).readLock();
+        readLock.lock();
+        try {
+            synchronized (projectStatus) {
+                long indexModified = indexFile.lastModified();
+                long indexLength = indexFile.length();
+                long headModified = headFile.lastModified();
+                fullScan = projectStatus.status == null
+                        || projectStatus.watchService == null
+                        || !workTree.equals(projectStatus.workTree)
+                        || indexModified != projectStatus.indexModified
+                        || indexLength != projectStatus.indexLength
+                        || headModified != projectStatus.headModified;
+                if (!fullScan) {
+                    Set<String> changedPaths = pollChangedPaths(projectStatus);
+                    if (changedPaths == null) {
+                        fullScan = true;
+                    } else if (!changedPaths.isEmpty()) {
+                        logger.debug("增量扫描工作区：{}，变化路径数：{}", gitProject.getName(), changedPaths.size());
+                        rescan(projectStatus.status, git, changedPaths, projectStatus.skipDirs);
+                    }
+                }
+                if (fullScan) {
+                    projectStatus.closeWatcher();
+                    projectStatus.workTree = workTree;
+                    projectStatus.skipDirs = new HashSet<>(gitRepositoryConfig.getStatusSkipDirs());
+                    if (!projectStatus.polling) {
+                        projectStatus.watch();
+                    }
+                    projectStatus.status = scan(git, projectStatus.skipDirs, refreshPaths);
+                    projectStatus.indexModified = indexModified;
+                    projectStatus.indexLength = indexLength;
+                    projectStatus.headModified = headModified;
+                }
+                skipDirs = projectStatus.skipDirs;
+                scanned = projectStatus.status;
+                result = scanned.copy();
+            }
+        } finally {
+            readLock.unlock();
+        }
+        /**
+         * 完整扫描发现内容未变但时间戳变化的文件时才写回索引；写回需要项目的写锁，释放读锁后尝试获取，有其它操作正在进行时跳过；
+         * 写回后只在缓存仍是本次扫描的结果时记录新的索引时间戳和大小
+         */
+        if (fullScan && !refreshPaths.isEmpty()) {
+            long[] indexStat = refreshIndex(gitProject, skipDirs, refreshPaths);
+            if (indexStat != null) {
+                synchronized (projectStatus) {
+                    if (projectStatus.status == scanned) {
+                        projectStatus.indexModified = indexStat[0];
+                        projectStatus.indexLength = indexStat[1];
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void invalidate(GitProject gitProject) {
+        ProjectStatus projectStatus = projectStatuses.remove(gitProject.getName());
+        if (projectStatus != null) {
+            synchronized (projectStatus) {
+                projectStatus.closeWatcher();
+            }
+        }
+    }
+
+    /**
+     * 完整扫描工作区
+     *
+     * @param git
+     * @param skipDirs
+     * @param refreshPaths 收集时间戳或大小与索引不一致、但内容未变的文件路径
+     * @return
+     * @throws GitAPIException
+     */
+    private WorkingTreeStatus scan(Git git, Set<String> skipDirs, Set<String> refreshPaths) throws GitAPIException {
+        WorkingTreeStatus status = new WorkingTreeStatus();
+        merge(status, git.status().setWorkingTreeIt(new SkipDirsFileTreeIterator(git.getRepository(), skipDirs, refreshPaths)).call());
+        return status;
+    }
+
+    /**
+     * 将完整扫描时发现的内容未变、但时间戳或大小与索引不一致的文件的时间戳和大小写回索引，相当于git update-index --refresh，
+     * 只遍历这些文件所在的路径，项目的写锁或索引被其它操作占用时跳过
+     *
+     * @param gitProject
+     * @param skipDirs
+     * @param refreshPaths
+     * @return 写入了索引时返回写入后索引文件的修改时间和大小，否则返回null
+     */
+    private long[] refreshIndex(GitProject gitProject, Set<String> skipDirs, Set<String> refreshPaths) {
+        try (RepositoryHandle handle = repositoryPool.tryAcquireForWrite(gitProject)) {
+            if (handle == null) {
+                logger.debug("项目正在进行其它操作，跳过刷新索引时间戳：{}", gitProject.getName());
+                return null;
+            }
+            if (!refreshIndex(handle.getRepository(), skipDirs, refreshPaths)) {
+                return null;
+            }
+            /**
+             * 仍持有写锁时读取索引文件的时间戳和大小，其它操作之后修改索引时下次扫描能发现变化
+             */
+            File indexFile = handle.getRepository().getIndexFile();
+            return new long[]{indexFile.lastModified(), indexFile.length()};
+        } catch (IOException e) {
+            logger.debug("刷新索引时间戳跳过：{}，原因：{}", gitProject.getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean refreshIndex(Repository repository, Set<String> skipDirs, Set<String> refreshPaths) {
+        DirCache dirCache = null;
+        try {
+            dirCache = repository.lockDirCache();
+            int refreshed = 0;
+            try (TreeWalk walk = new TreeWalk(repository)) {
+                int dirCacheIndex = walk.addTree(new DirCacheIterator(dirCache));
+                int workTreeIndex = walk.addTree(new SkipDirsFileTreeIterator(repository, skipDirs));
+                walk.setRecursive(true);
+                walk.setFilter(AndTreeFilter.create(PathFilterGroup.createFromStrings(refreshPaths), new TreeFilter() {
+                    @Override
+                    public boolean include(TreeWalk treeWalk) {
+                        return treeWalk.getTree(dirCacheIndex, DirCacheIterator.class) != null;
+                    }
+
+                    @Override
+                    public boolean shouldBeRecursive() {
+                        return false;
+                    }
+
+                    @Override
+                    public TreeFilter clone() {
+                        return this;
+                    }
+                }));
+                while (walk.next()) {
+                    DirCacheIterator dirCacheIterator = walk.getTree(dirCacheIndex, DirCacheIterator.class);
+                    WorkingTreeIterator workTreeIterator = walk.getTree(workTreeIndex, WorkingTreeIterator.class);
+                    DirCacheEntry entry = dirCacheIterator.getDirCacheEntry();
+                    if (workTreeIterator == null || entry == null || entry.getStage() != DirCacheEntry.STAGE_0
+                            || entry.isAssumeValid() || entry.isSkipWorkTree()
+                            || workTreeIterator.compareMetadata(entry) == WorkingTreeIterator.MetadataDiff.EQUAL) {
+                        continue;
+                    }
+                    workTreeIterator.setDirCacheIterator(walk, dirCacheIndex);
+                    if (!workTreeIterator.isModified(entry, true, walk.getObjectReader())) {
+                        entry.setLastModified(workTreeIterator.getEntryLastModifiedInstant());
+                        entry.setLength(workTreeIterator.getEntryLength());
+                        refreshed++;
+                    }
+                }
+            }
+            if (refreshed == 0) {
+                return false;
+            }
+            dirCache.write();
+            if (!dirCache.commit()) {
+                return false;
+            }
+            logger.debug("刷新索引时间戳：{}，文件数：{}", repository.getWorkTree(), refreshed);
+            return true;
+        } catch (IOException e) {
+            logger.debug("刷新索引时间戳跳过：{}，原因：{}", repository.getWorkTree(), e.getMessage());
+            return false;
+        } finally {
+            if (dirCache != null) {
+                dirCache.unlock();
+            }
+        }
+    }
+
+    /**
+     * 只重新扫描发生变化的路径，并替换缓存中这些路径下的状态
+     *
+     * @param status
+     * @param git
+     * @param changedPaths
+     * @param skipDirs
+     * @throws GitAPIException
+     */
+    private void rescan(WorkingTreeStatus status, Git git, Set<String> changedPaths, Set<String> skipDirs) throws GitAPIException {
+        StatusCommand command = git.status().setWorkingTreeIt(new SkipDirsFileTreeIterator(git.getRepository(), skipDirs));
+        for (String path : changedPaths) {
+            command.addPath(path);
+        }
+        Status partial = command.call();
+        removeUnder(status.getUntrackedSet(), changedPaths);
+        removeUnder(status.getModifiedSet(), changedPaths);
+        removeUnder(status.getMissingSet(), changedPaths);
+        removeUnder(status.getConflictingSet(), changedPaths);
+        merge(status, partial);
+    }
+
+    private void merge(WorkingTreeStatus status, Status jgitStatus) {
+        status.getUntrackedSet().addAll(jgitStatus.getUntracked());
+        status.getModifiedSet().addAll(jgitStatus.getModified());
+        status.getMissingSet().addAll(jgitStatus.getMissing());
+        status.getConflictingSet().addAll(jgitStatus.getConflicting());
+    }
+
+    private void removeUnder(Set<String> files, Set<String> changedPaths) {
+        Iterator<String> it = files.iterator();
+        while (it.hasNext()) {
+            String file = it.next();
+            for (String path : changedPaths) {
+                if (file.equals(path) || file.startsWith(path + "/")) {
+                    it.remove();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * 取出自上次扫描以来工作区发生变化的路径
+     *
+     * @param projectStatus
+     * @return 需要完整扫描时返回null
+     */
+    private Set<String> pollChangedPaths(ProjectStatus projectStatus) {
+        Set<String> changedPaths = new HashSet<>();
+        Path root = projectStatus.workTree.toPath();
+        WatchKey key;
+        while ((key = projectStatus.watchService.poll()) != null) {
+            Path dir = projectStatus.watchKeys.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (StandardWatchEventKinds.OVERFLOW == event.kind() || dir == null) {
+                    return null;
+                }
+                Path child = dir.resolve((Path) event.context());
+                String path = root.relativize(child).toString().replace(File.separatorChar, '/');
+                if (path.equals(Constants.DOT_GIT) || path.startsWith(Constants.DOT_GIT + "/")) {
+                    continue;
+                }
+                if (path.isEmpty() || child.getFileName().toString().equals(Constants.DOT_GIT_IGNORE)) {
+                    return null;
+                }
+                if (StandardWatchEventKinds.ENTRY_CREATE == event.kind() && Files.isDirectory(child)) {
+                    try {
+                        if (!projectStatus.register(child)) {
+                            projectStatus.startPolling();
+                            return null;
+                        }
+                    } catch (IOException e) {
+                        logger.warn("监听新建目录失败：" + child, e);
+                        return null;
+                    }
+                }
+                changedPaths.add(path);
+            }
+            if (!key.reset() && projectStatus.watchKeys.remove(key) != null) {
+                watchCount.decrementAndGet();
+            }
+        }
+        if (changedPaths.size() > MAX_CHANGED_PATHS) {
+            return null;
+        }
+        return changedPaths;
+    }
+
+    /**
+     * 单个项目的状态缓存及目录监听
+     */
+    private class ProjectStatus {
+
+        private File workTree;
+
+        private Set<String> skipDirs;
+
+        private WatchService watchService;
+
+        private final Map<WatchKey, Path> watchKeys = new HashMap<>();
+
+        private WorkingTreeStatus status;
+
+        private long indexModified;
+
+        private long indexLength;
+
+        private long headModified;
+
+        /**
+         * 监听目录数超过上限后不再监听，每次完整扫描，直到缓存失效
+         */
+        private boolean polling;
+
+        /**
+         * 递归监听工作区目录，监听失败或目录数超过上限时不使用缓存，每次完整扫描
+         */
+        private void watch() {
+            try {
+                watchService = FileSystems.getDefault().newWatchService();
+                if (!register(workTree.toPath())) {
+                    startPolling();
+                }
+            } catch (IOException e) {
+                logger.warn("工作区目录监听失败，不使用状态缓存：" + workTree, e);
+                closeWatcher();
+                polling = true;
+            }
+        }
+
+        /**
+         * 递归监听目录
+         *
+         * @param start
+         * @return 监听目录总数超过上限时返回false
+         * @throws IOException
+         */
+        private boolean register(Path start) throws IOException {
+            int maxWatches = gitRepositoryConfig.getStatusMaxWatches();
+            boolean[] exceeded = {false};
+            Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    if (dir.getFileName() != null && (Constants.DOT_GIT.equals(dir.getFileName().toString())
+                            || !dir.equals(workTree.toPath()) && skipDirs.contains(dir.getFileName().toString()))) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    if (watchCount.incrementAndGet() > maxWatches) {
+                        watchCount.decrementAndGet();
+                        exceeded[0] = true;
+                        return FileVisitResult.TERMINATE;
+                    }
+                    WatchKey key;
+                    try {
+                        key = dir.register(watchService,
+                                StandardWatchEventKinds.ENTRY_CREATE,
+                                StandardWatchEventKinds.ENTRY_DELETE,
+                                StandardWatchEventKinds.ENTRY_MODIFY);
+                    } catch (IOException | RuntimeException e) {
+                        watchCount.decrementAndGet();
+                        throw e;
+                    }
+                    if (watchKeys.put(key, dir) != null) {
+                        watchCount.decrementAndGet();
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            return !exceeded[0];
+        }
+
+        /**
+         * 监听目录数超过上限，停止监听，之后每次完整扫描
+         */
+        private void startPolling() {
+            logger.warn("监听目录总数超过上限{}，不再监听工作区目录，每次刷新时完整扫描：{}",
+                    gitRepositoryConfig.getStatusMaxWatches(), workTree);
+            closeWatcher();
+            polling = true;
+        }
+
+        private void closeWatcher() {
+            watchCount.addAndGet(-watchKeys.size());
+            watchKeys.clear();
+            if (watchService != null) {
+                try {
+                    watchService.close();
+                } catch (IOException e) {
+                    logger.warn("关闭工作区目录监听失败：" + workTree, e);
+                }
+                watchService = null;
+            }
+            status = null;
+        }
+    }
+}
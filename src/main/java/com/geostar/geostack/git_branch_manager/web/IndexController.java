@@ -1,10 +1,28 @@
 package com.geostar.geostack.git_branch_manager.web;
 
+import com.geostar.geostack.git_branch_manager.common.ActivityPeriodEnum;
+import com.geostar.geostack.git_branch_manager.common.CursorPage;
+import com.geostar.geostack.git_branch_manager.common.JobEventListener;
+import com.geostar.geostack.git_branch_manager.common.MergePreviewStatusEnum;
 import com.geostar.geostack.git_branch_manager.common.Page;
+import com.geostar.geostack.git_branch_manager.common.ProjectGroupNotFoundException;
 import com.geostar.geostack.git_branch_manager.config.GitRepositoryConfig;
+import com.geostar.geostack.git_branch_manager.pojo.BatchJob;
+import com.geostar.geostack.git_branch_manager.pojo.BatchResult;
+import com.geostar.geostack.git_branch_manager.pojo.ContributorActivity;
+import com.geostar.geostack.git_branch_manager.pojo.FileLines;
 import com.geostar.geostack.git_branch_manager.pojo.GitLog;
 import com.geostar.geostack.git_branch_manager.pojo.GitProject;
+import com.geostar.geostack.git_branch_manager.pojo.JobEvent;
+import com.geostar.geostack.git_branch_manager.pojo.MaintenanceReport;
+import com.geostar.geostack.git_branch_manager.pojo.MergePreview;
+import com.geostar.geostack.git_branch_manager.pojo.ProjectGroup;
+import com.geostar.geostack.git_branch_manager.service.IBatchJobService;
+import com.geostar.geostack.git_branch_manager.service.IBatchTaskService;
+import com.geostar.geostack.git_branch_manager.service.IFileViewService;
 import com.geostar.geostack.git_branch_manager.service.IGitRepositoryService;
+import com.geostar.geostack.git_branch_manager.service.IRepositoryMaintenanceService;
+import com.geostar.geostack.git_branch_manager.service.IStartupWarmupService;
 import org.apache.commons.io.IOUtils;
 import org.dom4j.Document;
 import org.dom4j.DocumentException;
@@ -16,22 +34,34 @@ import org.eclipse.jgit.api.errors.GitAPIException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.nio.charset.Charset;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 @Controller
 @RequestMapping("/")
@@ -46,8 +76,34 @@ public class IndexController {
      * 未提交文件view的URI路径前缀
      */
     private static final String UNTRACKED_FILE_VIEW_PATH_PREFIX = "/untrackedFileView/";
+    /**
+     * 未提交文件分页读取的URI路径前缀
+     */
+    private static final String UNTRACKED_FILE_LINES_PATH_PREFIX = "/untrackedFileLines/";
+    /**
+     * 文件预览每页的行数
+     */
+    private static final int FILE_VIEW_PAGE_LINES = 500;
+    /**
+     * 游标分页每页的最大条数
+     */
+    private static final int MAX_CURSOR_PAGE_SIZE = 200;
+    /**
+     * 任务进度推送连接的超时时间，超时后浏览器自动重连续传，单位毫秒
+     */
+    private static final long JOB_EVENTS_TIMEOUT = 30 * 60 * 1000L;
     @Resource
     private IGitRepositoryService gitRepositoryService;
+    @Resource
+    private IBatchTaskService batchTaskService;
+    @Resource
+    private IBatchJobService batchJobService;
+    @Resource
+    private IFileViewService fileViewService;
+    @Resource
+    private IRepositoryMaintenanceService repositoryMaintenanceService;
+    @Resource
+    private IStartupWarmupService startupWarmupService;
     @Autowired
     private GitRepositoryConfig gitRepositoryConfig;
 
@@ -70,16 +126,19 @@ public class IndexController {
      */
     @RequestMapping("/list")
     public String list(Model model) {
-        List<GitProject> projects = gitRepositoryService.getAllGitProject();
-        for (GitProject gitProject : projects) {
-            try {
-                gitRepositoryService.updateGitProjectInfo(gitProject);
-            } catch (IOException e) {
-                e.printStackTrace();
-            } catch (GitAPIException e) {
-                e.printStackTrace();
-            }
+        /**
+         * 启动预热尚未完成时等待其完成，避免与预热同时刷新同一批项目
+         */
+        try {
+            startupWarmupService.awaitReady(gitRepositoryConfig.getStartupWarmupTimeout(), TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+        List<GitProject> projects = gitRepositoryService.getAllGitProject();
+        batchTaskService.executeLocal(projects, gitProject -> {
+            gitRepositoryService.updateGitProjectInfo(gitProject);
+            return true;
+        });
         modelBuild(model, projects);
         return "list";
     }
@@ -97,52 +156,141 @@ public class IndexController {
      * 克隆或者拉取最新代码
      *
      * @param model
+     * @param group 项目分组，为空时操作全部项目
      * @return
      */
     @RequestMapping({"cloneOrPull"})
-    public String cloneOrPull(Model model) {
-        List<GitProject> projects = gitRepositoryService.getAllGitProject();
-        for (GitProject gitProject : projects) {
-            try {
-                gitRepositoryService.cloneOrPull(gitProject);
-                gitRepositoryService.updateGitProjectInfo(gitProject);
-            } catch (IOException e) {
-                e.printStackTrace();
-            } catch (GitAPIException e) {
-                e.printStackTrace();
-            }
-        }
+    public String cloneOrPull(Model model, @RequestParam(value = "group", required = false) String group) {
+        List<GitProject> projects = gitRepositoryService.getGitProjects(group);
+        List<BatchResult> results = batchTaskService.execute(projects, gitRepositoryConfig.getBatchConcurrency(group), gitProject -> {
+            boolean result = gitRepositoryService.cloneOrPull(gitProject);
+            gitRepositoryService.updateGitProjectInfo(gitProject);
+            return result;
+        });
         modelBuild(model, projects);
-        buildPom(projects);
+        model.addAttribute("batchResults", results);
+        buildPom(gitRepositoryService.getAllGitProject());
         return INDEX_HTML;
     }
 
+    /**
+     * 以后台任务方式克隆或者拉取最新代码，立即返回任务信息
+     *
+     * @param group 项目分组，为空时操作全部项目
+     * @return
+     */
+    @ResponseBody
+    @PostMapping("/jobs/cloneOrPull")
+    public BatchJob cloneOrPullJob(@RequestParam(value = "group", required = false) String group) {
+        List<GitProject> projects = gitRepositoryService.getGitProjects(group);
+        return batchJobService.submit("cloneOrPull", projects, gitRepositoryConfig.getBatchConcurrency(group), (gitProject, monitor) -> {
+            boolean result = gitRepositoryService.cloneOrPull(gitProject, monitor);
+            gitRepositoryService.updateGitProjectInfo(gitProject);
+            return result;
+        }, () -> buildPom(gitRepositoryService.getAllGitProject()));
+    }
+
+    /**
+     * 以后台任务方式推送代码，立即返回任务信息
+     *
+     * @param inputMessage
+     * @param group 项目分组，为空时操作全部项目
+     * @return
+     */
+    @ResponseBody
+    @PostMapping("/jobs/push/{message}")
+    public BatchJob pushJob(@PathVariable(value = "message") String inputMessage, @RequestParam(value = "group", required = false) String group) {
+        try {
+            inputMessage = URLDecoder.decode(inputMessage, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            e.printStackTrace();
+        }
+        String pushMessage = inputMessage;
+        List<GitProject> projects = gitRepositoryService.getGitProjects(group);
+        return batchJobService.submit("push", projects, gitRepositoryConfig.getBatchConcurrency(group), (gitProject, monitor) -> {
+            boolean result = gitRepositoryService.push(gitProject, pushMessage, monitor);
+            gitRepositoryService.updateGitProjectInfo(gitProject);
+            return result;
+        }, null);
+    }
+
+    /**
+     * 最近的后台任务列表
+     *
+     * @return
+     */
+    @ResponseBody
+    @GetMapping("/jobs")
+    public List<BatchJob> jobs() {
+        return batchJobService.getJobs();
+    }
+
+    /**
+     * 后台任务信息
+     *
+     * @param jobId
+     * @return
+     */
+    @ResponseBody
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<BatchJob> job(@PathVariable(value = "jobId") String jobId) {
+        BatchJob job = batchJobService.getJob(jobId);
+        return job == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(job);
+    }
+
+    /**
+     * 以Server-Sent Events推送后台任务进度，断线重连时根据Last-Event-ID续传
+     *
+     * @param jobId
+     * @param lastEventId
+     * @return
+     */
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter jobEvents(@PathVariable(value = "jobId") String jobId,
+                                @RequestHeader(value = "Last-Event-ID", required = false, defaultValue = "0") long lastEventId) {
+        SseEmitter emitter = new SseEmitter(JOB_EVENTS_TIMEOUT);
+        JobEventListener listener = event -> {
+            emitter.send(SseEmitter.event().id(String.valueOf(event.getId())).name(event.getType()).data(event));
+            if (JobEvent.JOB_FINISH.equals(event.getType())) {
+                emitter.complete();
+            }
+        };
+        /**
+         * 连接断开、超时或出错时取消监听，不再向已失效的连接推送事件
+         */
+        emitter.onCompletion(() -> batchJobService.unsubscribe(jobId, listener));
+        emitter.onTimeout(() -> batchJobService.unsubscribe(jobId, listener));
+        emitter.onError(e -> batchJobService.unsubscribe(jobId, listener));
+        boolean exists = batchJobService.subscribe(jobId, lastEventId, listener);
+        if (!exists) {
+            emitter.complete();
+        }
+        return emitter;
+    }
+
     /**
      * 创建分支
      *
      * @param model
+     * @param group 项目分组，为空时操作全部项目
      * @return
      */
     @RequestMapping({"/createBranch/{branchName}"})
-    public String createBranch(Model model, @PathVariable(value = "branchName") String branchName) {
+    public String createBranch(Model model, @PathVariable(value = "branchName") String branchName, @RequestParam(value = "group", required = false) String group) {
         try {
             branchName = URLDecoder.decode(branchName, "UTF-8");
         } catch (UnsupportedEncodingException e) {
             e.printStackTrace();
         }
-        List<GitProject> projects = gitRepositoryService.getAllGitProject();
-        for (GitProject gitProject : projects) {
-            try {
-                gitRepositoryService.createBranch(gitProject, branchName);
-                gitRepositoryService.updateGitProjectInfo(gitProject);
-            } catch (IOException e) {
-                e.printStackTrace();
-            } catch (GitAPIException e) {
-                e.printStackTrace();
-            }
-            gitProject.getBranchList().add(branchName);
-        }
+        String newBranchName = branchName;
+        List<GitProject> projects = gitRepositoryService.getGitProjects(group);
+        List<BatchResult> results = batchTaskService.execute(projects, gitRepositoryConfig.getBatchConcurrency(group), gitProject -> {
+            boolean result = gitRepositoryService.createBranch(gitProject, newBranchName);
+            gitRepositoryService.updateGitProjectInfo(gitProject);
+            return result;
+        });
         modelBuild(model, projects);
+        model.addAttribute("batchResults", results);
         return INDEX_HTML;
     }
 
@@ -150,27 +298,25 @@ public class IndexController {
      * 切换分支
      *
      * @param model
+     * @param group 项目分组，为空时操作全部项目
      * @return
      */
     @RequestMapping({"/switchBranch/{branchName}"})
-    public String switchBranchAll(Model model, @PathVariable(value = "branchName") String branchName) {
+    public String switchBranchAll(Model model, @PathVariable(value = "branchName") String branchName, @RequestParam(value = "group", required = false) String group) {
         try {
             branchName = URLDecoder.decode(branchName, "UTF-8");
         } catch (UnsupportedEncodingException e) {
             e.printStackTrace();
         }
-        List<GitProject> projects = gitRepositoryService.getAllGitProject();
-        for (GitProject gitProject : projects) {
-            try {
-                gitRepositoryService.switchBranch(gitProject, branchName);
-                gitRepositoryService.updateGitProjectInfo(gitProject);
-            } catch (IOException e) {
-                e.printStackTrace();
-            } catch (GitAPIException e) {
-                e.printStackTrace();
-            }
-        }
+        String targetBranchName = branchName;
+        List<GitProject> projects = gitRepositoryService.getGitProjects(group);
+        List<BatchResult> results = batchTaskService.execute(projects, gitRepositoryConfig.getBatchConcurrency(group), gitProject -> {
+            boolean result = gitRepositoryService.switchBranch(gitProject, targetBranchName);
+            gitRepositoryService.updateGitProjectInfo(gitProject);
+            return result;
+        });
         modelBuild(model, projects);
+        model.addAttribute("batchResults", results);
         return INDEX_HTML;
     }
 
@@ -178,27 +324,25 @@ public class IndexController {
      * 推送代码
      *
      * @param model
+     * @param group 项目分组，为空时操作全部项目
      * @return
      */
     @RequestMapping({"/push/{message}"})
-    public String push(Model model, @PathVariable(value = "message") String inputMessage) {
+    public String push(Model model, @PathVariable(value = "message") String inputMessage, @RequestParam(value = "group", required = false) String group) {
         try {
             inputMessage = URLDecoder.decode(inputMessage, "UTF-8");
         } catch (UnsupportedEncodingException e) {
             e.printStackTrace();
         }
-        List<GitProject> projects = gitRepositoryService.getAllGitProject();
-        for (GitProject gitProject : projects) {
-            try {
-                gitRepositoryService.push(gitProject, inputMessage);
-                gitRepositoryService.updateGitProjectInfo(gitProject);
-            } catch (IOException e) {
-                e.printStackTrace();
-            } catch (GitAPIException e) {
-                e.printStackTrace();
-            }
-        }
+        String pushMessage = inputMessage;
+        List<GitProject> projects = gitRepositoryService.getGitProjects(group);
+        List<BatchResult> results = batchTaskService.execute(projects, gitRepositoryConfig.getBatchConcurrency(group), gitProject -> {
+            boolean result = gitRepositoryService.push(gitProject, pushMessage);
+            gitRepositoryService.updateGitProjectInfo(gitProject);
+            return result;
+        });
         modelBuild(model, projects);
+        model.addAttribute("batchResults", results);
         return INDEX_HTML;
     }
 
@@ -206,22 +350,19 @@ public class IndexController {
      * 删除项目的当前分支，不允许删除master和develop
      *
      * @param model
+     * @param group 项目分组，为空时操作全部项目
      * @return
      */
     @RequestMapping({"/deleteBranch"})
-    public String deleteBranch(Model model) {
-        List<GitProject> projects = gitRepositoryService.getAllGitProject();
-        for (GitProject gitProject : projects) {
-            try {
-                gitRepositoryService.deleteBranch(gitProject);
-                gitRepositoryService.updateGitProjectInfo(gitProject);
-            } catch (IOException e) {
-                e.printStackTrace();
-            } catch (GitAPIException e) {
-                e.printStackTrace();
-            }
-        }
+    public String deleteBranch(Model model, @RequestParam(value = "group", required = false) String group) {
+        List<GitProject> projects = gitRepositoryService.getGitProjects(group);
+        List<BatchResult> results = batchTaskService.execute(projects, gitRepositoryConfig.getBatchConcurrency(group), gitProject -> {
+            boolean result = gitRepositoryService.deleteBranch(gitProject);
+            gitRepositoryService.updateGitProjectInfo(gitProject);
+            return result;
+        });
         modelBuild(model, projects);
+        model.addAttribute("batchResults", results);
         return INDEX_HTML;
     }
 
@@ -231,28 +372,27 @@ public class IndexController {
      * @param model
      * @param tagName
      * @param tagLog
+     * @param group 项目分组，为空时操作全部项目
      * @return
      */
     @RequestMapping({"/createTag/{tagName}/{tagLog}"})
-    public String createTag(Model model, @PathVariable(value = "tagName") String tagName, @PathVariable(value = "tagLog") String tagLog) {
+    public String createTag(Model model, @PathVariable(value = "tagName") String tagName, @PathVariable(value = "tagLog") String tagLog, @RequestParam(value = "group", required = false) String group) {
         try {
             tagName = URLDecoder.decode(tagName, "UTF-8");
             tagLog = URLDecoder.decode(tagLog, "UTF-8");
         } catch (UnsupportedEncodingException e) {
             e.printStackTrace();
         }
-        List<GitProject> projects = gitRepositoryService.getAllGitProject();
-        for (GitProject gitProject : projects) {
-            try {
-                gitRepositoryService.createTag(gitProject, tagName, tagLog);
-                gitRepositoryService.updateGitProjectInfo(gitProject);
-            } catch (IOException e) {
-                e.printStackTrace();
-            } catch (GitAPIException e) {
-                e.printStackTrace();
-            }
-        }
+        String newTagName = tagName;
+        String newTagLog = tagLog;
+        List<GitProject> projects = gitRepositoryService.getGitProjects(group);
+        List<BatchResult> results = batchTaskService.execute(projects, gitRepositoryConfig.getBatchConcurrency(group), gitProject -> {
+            boolean result = gitRepositoryService.createTag(gitProject, newTagName, newTagLog);
+            gitRepositoryService.updateGitProjectInfo(gitProject);
+            return result;
+        });
         modelBuild(model, projects);
+        model.addAttribute("batchResults", results);
         return INDEX_HTML;
     }
 
@@ -262,28 +402,27 @@ public class IndexController {
      * @param model
      * @param tagName
      * @param branchName
+     * @param group 项目分组，为空时操作全部项目
      * @return
      */
     @RequestMapping({"/createBranchByTag/{tagName}/{branchName}"})
-    public String createBranchByTag(Model model, @PathVariable(value = "tagName") String tagName, @PathVariable(value = "branchName") String branchName) {
+    public String createBranchByTag(Model model, @PathVariable(value = "tagName") String tagName, @PathVariable(value = "branchName") String branchName, @RequestParam(value = "group", required = false) String group) {
         try {
             tagName = URLDecoder.decode(tagName, "UTF-8");
             branchName = URLDecoder.decode(branchName, "UTF-8");
         } catch (UnsupportedEncodingException e) {
             e.printStackTrace();
         }
-        List<GitProject> projects = gitRepositoryService.getAllGitProject();
-        for (GitProject gitProject : projects) {
-            try {
-                gitRepositoryService.createBranchByTag(gitProject, tagName, branchName);
-                gitRepositoryService.updateGitProjectInfo(gitProject);
-            } catch (IOException e) {
-                e.printStackTrace();
-            } catch (GitAPIException e) {
-                e.printStackTrace();
-            }
-        }
+        String fromTagName = tagName;
+        String newBranchName = branchName;
+        List<GitProject> projects = gitRepositoryService.getGitProjects(group);
+        List<BatchResult> results = batchTaskService.execute(projects, gitRepositoryConfig.getBatchConcurrency(group), gitProject -> {
+            boolean result = gitRepositoryService.createBranchByTag(gitProject, fromTagName, newBranchName);
+            gitRepositoryService.updateGitProjectInfo(gitProject);
+            return result;
+        });
         modelBuild(model, projects);
+        model.addAttribute("batchResults", results);
         return INDEX_HTML;
     }
 
@@ -330,12 +469,15 @@ public class IndexController {
                 try {
                     String fileName = URLDecoder.decode(path.substring(projectName.length() + 1, path.length()), "UTF-8");
                     String filePath = modulesHome + File.separator + gitProject.getName() + File.separator + fileName;
-                    String fileContent = gitRepositoryService.getFileContent(gitProject, fileName);
+                    FileLines fileLines = fileViewService.readLines(gitProject, fileName, 0, FILE_VIEW_PAGE_LINES);
+                    model.addAttribute("linesUrl", UNTRACKED_FILE_LINES_PATH_PREFIX + path);
                     if (fileName.contains(File.separator)) {
                         fileName = fileName.substring(fileName.lastIndexOf(File.separator), fileName.length());
                     }
                     model.addAttribute("filePath", filePath);
-                    model.addAttribute("fileContent", fileContent);
+                    model.addAttribute("fileContent", String.join("\n", fileLines.getLines()));
+                    model.addAttribute("fileLines", fileLines);
+                    model.addAttribute("pageLines", FILE_VIEW_PAGE_LINES);
                     model.addAttribute("fileName", fileName);
                 } catch (IOException e) {
                     e.printStackTrace();
@@ -348,31 +490,52 @@ public class IndexController {
         return "untrackedFileView";
     }
 
+    /**
+     * 新增文件分页读取，供预览页面加载更多
+     *
+     * @param projectName
+     * @param start       起始行号，从0开始
+     * @param count       读取的行数
+     * @param request
+     * @return
+     * @throws IOException
+     */
+    @ResponseBody
+    @GetMapping({UNTRACKED_FILE_LINES_PATH_PREFIX + "{projectName}/**"})
+    public FileLines untrackedFileLines(@PathVariable(value = "projectName") String projectName,
+                                        @RequestParam(value = "start", defaultValue = "0") int start,
+                                        @RequestParam(value = "count", defaultValue = "" + FILE_VIEW_PAGE_LINES) int count,
+                                        HttpServletRequest request) throws IOException {
+        String path = request.getRequestURI().substring(UNTRACKED_FILE_LINES_PATH_PREFIX.length(), request.getRequestURI().length());
+        String fileName = URLDecoder.decode(path.substring(projectName.length() + 1, path.length()), "UTF-8");
+        for (GitProject gitProject : gitRepositoryService.getAllGitProject()) {
+            if (projectName.equals(gitProject.getName())) {
+                return fileViewService.readLines(gitProject, fileName, start, count);
+            }
+        }
+        throw new FileNotFoundException(projectName + "/" + fileName);
+    }
+
     /**
      * 删除标签
      *
      * @param model
      * @param tagName
+     * @param group 项目分组，为空时操作全部项目
      * @return
      */
     @RequestMapping({"/deleteTag/{tagName}"})
-    public String deleteTag(Model model, @PathVariable(value = "tagName") String tagName) {
+    public String deleteTag(Model model, @PathVariable(value = "tagName") String tagName, @RequestParam(value = "group", required = false) String group) {
         try {
             tagName = URLDecoder.decode(tagName, "UTF-8");
         } catch (UnsupportedEncodingException e) {
             e.printStackTrace();
         }
-        List<GitProject> projects = gitRepositoryService.getAllGitProject();
-        for (GitProject gitProject : projects) {
-            try {
-                gitRepositoryService.deleteTag(gitProject, tagName);
-            } catch (IOException e) {
-                e.printStackTrace();
-            } catch (GitAPIException e) {
-                e.printStackTrace();
-            }
-        }
+        String deleteTagName = tagName;
+        List<GitProject> projects = gitRepositoryService.getGitProjects(group);
+        List<BatchResult> results = batchTaskService.execute(projects, gitRepositoryConfig.getBatchConcurrency(group), gitProject -> gitRepositoryService.deleteTag(gitProject, deleteTagName));
         modelBuild(model, projects);
+        model.addAttribute("batchResults", results);
         return INDEX_HTML;
     }
 
@@ -382,12 +545,14 @@ public class IndexController {
      * @param model
      * @param currWorkBranch 当前工作分支
      * @param sourceBranch   被合并分支
+     * @param group 项目分组，为空时操作全部项目
      * @return
      */
     @RequestMapping({"/mergeBranch/{currWorkBranch}/{sourceBranch}/{message}"})
     public String mergeBranch(Model model, @PathVariable(value = "currWorkBranch") String currWorkBranch,
                               @PathVariable(value = "sourceBranch") String sourceBranch,
-                              @PathVariable(value = "message") String message) {
+                              @PathVariable(value = "message") String message,
+                              @RequestParam(value = "group", required = false) String group) {
         try {
             currWorkBranch = URLDecoder.decode(currWorkBranch, "UTF-8");
             sourceBranch = URLDecoder.decode(sourceBranch, "UTF-8");
@@ -395,33 +560,76 @@ public class IndexController {
         } catch (UnsupportedEncodingException e) {
             e.printStackTrace();
         }
-        List<GitProject> projects = gitRepositoryService.getAllGitProject();
-        for (GitProject gitProject : projects) {
-            try {
-                gitRepositoryService.mergeBranch(gitProject, currWorkBranch, sourceBranch, message);
-            } catch (IOException e) {
-                e.printStackTrace();
-            } catch (GitAPIException e) {
-                e.printStackTrace();
-            }
-        }
+        String workBranch = currWorkBranch;
+        String mergeSourceBranch = sourceBranch;
+        String mergeMessage = message;
+        List<GitProject> projects = gitRepositoryService.getGitProjects(group);
+        List<BatchResult> results = batchTaskService.execute(projects, gitRepositoryConfig.getBatchConcurrency(group), gitProject -> gitRepositoryService.mergeBranch(gitProject, workBranch, mergeSourceBranch, mergeMessage));
         modelBuild(model, projects);
+        model.addAttribute("batchResults", results);
         return INDEX_HTML;
     }
 
+    /**
+     * 合并预检，并行在内存中试合并所有项目，返回每个项目的冲突情况，不修改工作区和远程仓库
+     *
+     * @param currWorkBranch 当前工作分支
+     * @param sourceBranch   被合并分支
+     * @param group 项目分组，为空时操作全部项目
+     * @return
+     */
+    @ResponseBody
+    @GetMapping({"/previewMerge/{currWorkBranch}/{sourceBranch}"})
+    public List<MergePreview> previewMerge(@PathVariable(value = "currWorkBranch") String currWorkBranch,
+                                           @PathVariable(value = "sourceBranch") String sourceBranch,
+                                           @RequestParam(value = "group", required = false) String group) {
+        try {
+            currWorkBranch = URLDecoder.decode(currWorkBranch, "UTF-8");
+            sourceBranch = URLDecoder.decode(sourceBranch, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            e.printStackTrace();
+        }
+        String workBranch = currWorkBranch;
+        String mergeSourceBranch = sourceBranch;
+        List<GitProject> projects = gitRepositoryService.getGitProjects(group);
+        Map<String, MergePreview> previews = new ConcurrentHashMap<>();
+        List<BatchResult> results = batchTaskService.execute(projects, gitRepositoryConfig.getBatchConcurrency(group), gitProject -> {
+            previews.put(gitProject.getName(), gitRepositoryService.previewMerge(gitProject, workBranch, mergeSourceBranch));
+            return true;
+        });
+        List<MergePreview> list = new ArrayList<>();
+        for (BatchResult result : results) {
+            MergePreview preview = previews.get(result.getProjectName());
+            if (preview == null) {
+                preview = new MergePreview();
+                preview.setProjectName(result.getProjectName());
+                preview.setStatus(MergePreviewStatusEnum.ERROR);
+                preview.setMessage(result.getMessage());
+            }
+            list.add(preview);
+        }
+        return list;
+    }
+
     /**
      * 分页获取Git日志
      *
      * @param username
+     * @param projectName
+     * @param pageIndex
+     * @param pageSize
      * @return
      */
     @ResponseBody
     @RequestMapping({"/getCommitLogs", "/getCommitLogs/{username}", "/getCommitLogs/{username}/{projectName}"})
     public List<GitLog> getCommitLogs(
             @PathVariable(value = "username", required = false) String username,
-            @PathVariable(value = "projectName", required = false) String projectName) {
+            @PathVariable(value = "projectName", required = false) String projectName,
+            @RequestParam(value = "pageIndex", defaultValue = "0") int pageIndex,
+            @RequestParam(value = "pageSize", defaultValue = "10") int pageSize) {
         Page<GitLog> page = new Page<>();
-        page.setPageIndex(0);
+        page.setPageIndex(Math.max(0, pageIndex));
+        page.setPageSize(Math.max(1, pageSize));
         try {
             gitRepositoryService.getCommitLogs(page, username, projectName);
         } catch (IOException e) {
@@ -429,14 +637,154 @@ public class IndexController {
         } catch (GitAPIException e) {
             e.printStackTrace();
         }
-        Set<String> userSet = new HashSet<>();
-        for (GitLog log : page.getData()) {
-            userSet.add(log.getUsername());
+        return page.getData();
+    }
+
+    /**
+     * 游标分页获取提交日志，第一页不传游标，之后传入上一页返回的nextCursor；
+     * 按提交时间倒序，时间相同时按项目名称、再按commitid排序，游标依次记录这三个字段
+     *
+     * @param cursor
+     * @param username
+     * @param projectName
+     * @param since       开始日期，yyyy-MM-dd，包含
+     * @param until       结束日期，yyyy-MM-dd，包含
+     * @param pageSize    每页条数，不超过MAX_CURSOR_PAGE_SIZE
+     * @return 游标格式不正确时返回400
+     */
+    @ResponseBody
+    @GetMapping({"/getCommitLogsByCursor"})
+    public ResponseEntity<CursorPage<GitLog>> getCommitLogsByCursor(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "username", required = false) String username,
+            @RequestParam(value = "projectName", required = false) String projectName,
+            @RequestParam(value = "since", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate since,
+            @RequestParam(value = "until", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate until,
+            @RequestParam(value = "pageSize", defaultValue = "10") int pageSize) {
+        try {
+            return ResponseEntity.ok(gitRepositoryService.getCommitLogsByCursor(cursor, username, projectName, since, until,
+                    Math.min(Math.max(1, pageSize), MAX_CURSOR_PAGE_SIZE)));
+        } catch (IllegalArgumentException e) {
+            logger.warn("提交日志游标不正确：{}，原因：{}", cursor, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (GitAPIException e) {
+            e.printStackTrace();
         }
-        String[] userArr = new String[userSet.size()];
-        userArr = userSet.toArray(userArr);
-        Arrays.sort(userArr);
-        return page.getAllData();
+        return ResponseEntity.ok(new CursorPage<>());
+    }
+
+    /**
+     * 获取各项目最近一次仓库维护的结果
+     *
+     * @return
+     */
+    @ResponseBody
+    @GetMapping({"/maintenance"})
+    public List<MaintenanceReport> getMaintenanceReports() {
+        return repositoryMaintenanceService.getReports();
+    }
+
+    /**
+     * 立即在后台发起一轮仓库维护
+     *
+     * @return 已有一轮维护正在进行时返回false
+     */
+    @ResponseBody
+    @PostMapping({"/maintenance"})
+    public boolean maintainAll() {
+        return repositoryMaintenanceService.submitMaintainAll();
+    }
+
+    /**
+     * 获取配置的项目分组
+     *
+     * @return
+     */
+    @ResponseBody
+    @GetMapping({"/projectGroups"})
+    public Map<String, ProjectGroup> getProjectGroups() {
+        return gitRepositoryConfig.getProjectGroups();
+    }
+
+    /**
+     * 批量操作指定的分组不存在时返回400及已配置的分组名称
+     *
+     * @param e
+     * @return
+     */
+    @ResponseBody
+    @ExceptionHandler(ProjectGroupNotFoundException.class)
+    public ResponseEntity<Map<String, Object>> projectGroupNotFound(ProjectGroupNotFoundException e) {
+        logger.warn(e.getMessage());
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("message", e.getMessage());
+        body.put("groups", e.getGroups());
+        return ResponseEntity.badRequest().body(body);
+    }
+
+    /**
+     * 检索提交日志
+     *
+     * @param query       检索内容
+     * @param projectName 项目名称，为空时检索所有项目
+     * @param pageIndex
+     * @param pageSize
+     * @return
+     */
+    @ResponseBody
+    @GetMapping({"/searchCommitLogs"})
+    public Page<GitLog> searchCommitLogs(
+            @RequestParam(value = "q") String query,
+            @RequestParam(value = "projectName", required = false) String projectName,
+            @RequestParam(value = "pageIndex", defaultValue = "0") int pageIndex,
+            @RequestParam(value = "pageSize", defaultValue = "10") int pageSize) {
+        Page<GitLog> page = new Page<>();
+        page.setPageIndex(Math.max(0, pageIndex));
+        page.setPageSize(Math.max(1, pageSize));
+        try {
+            gitRepositoryService.searchCommitLogs(page, query, projectName);
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (GitAPIException e) {
+            e.printStackTrace();
+        }
+        return page;
+    }
+
+    /**
+     * 获取贡献统计，按作者提交总数倒序，可用于活跃度图表和排行榜
+     *
+     * @param projectName 项目名称，为空时统计所有项目
+     * @param username    作者名称，为空时统计所有作者
+     * @param period      统计周期，DAY或WEEK
+     * @param since       开始日期，yyyy-MM-dd，包含
+     * @param until       结束日期，yyyy-MM-dd，包含
+     * @param limit       返回的作者数，0表示不限
+     * @return
+     */
+    @ResponseBody
+    @GetMapping({"/getCommitActivity"})
+    public List<ContributorActivity> getCommitActivity(
+            @RequestParam(value = "projectName", required = false) String projectName,
+            @RequestParam(value = "username", required = false) String username,
+            @RequestParam(value = "period", defaultValue = "WEEK") ActivityPeriodEnum period,
+            @RequestParam(value = "since", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate since,
+            @RequestParam(value = "until", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate until,
+            @RequestParam(value = "limit", defaultValue = "0") int limit) {
+        List<ContributorActivity> activities = new ArrayList<>();
+        try {
+            activities = gitRepositoryService.getCommitActivity(projectName, username, period, since, until);
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (GitAPIException e) {
+            e.printStackTrace();
+        }
+        if (limit > 0 && activities.size() > limit) {
+            activities = activities.subList(0, limit);
+        }
+        return activities;
     }
 
 
@@ -462,6 +810,11 @@ public class IndexController {
          */
         List<String> tagIntersect = gitRepositoryService.getTagIntersect(projects);
         model.addAttribute("tagIntersect", tagIntersect);
+        /**
+         * 添加分支和标签在多少个项目中存在的属性
+         */
+        model.addAttribute("branchCoverage", gitRepositoryService.getBranchCoverage(projects));
+        model.addAttribute("tagCoverage", gitRepositoryService.getTagCoverage(projects));
         model.addAttribute("gitRepositoryConfig", gitRepositoryConfig);
         model.addAllAttributes(Arrays.asList(objects));
     }